@@ -0,0 +1,84 @@
+package com.game.lines.bench;
+
+import com.game.lines.model.Board;
+
+import java.util.Arrays;
+import java.util.SplittableRandom;
+
+/**
+ * Подготовка полей для бенчмарков: случайное заполнение шарами без готовых линий,
+ * как на поле после очередного хода игры.
+ */
+final class Boards {
+    /**
+     * Наименьшая длина линии, удаляемой с поля.
+     */
+    private static final int LINE = 5;
+    /**
+     * Направления просмотра линий: горизонталь, вертикаль и две диагонали.
+     */
+    private static final int[][] DIRECTIONS = { { 1, 0 }, { 0, 1 }, { 1, 1 }, { 1, -1 } };
+
+    private Boards() { }
+
+    /**
+     * Заполнение поля шарами случайных цветов.
+     *
+     * @param board  игровое поле.
+     * @param fill   доля занятых ячеек (от 0 до 1).
+     * @param random генератор случайных чисел.
+     */
+    static void fill(Board board, double fill, SplittableRandom random) {
+        board.clear();
+        for (int index = 0; index < board.size(); index++) {
+            if ( random.nextDouble() < fill ) {
+                board.setColor(index, (byte) (1 + random.nextInt(Board.COLORS)));
+            }
+        }
+        // удаление случайно сформированных линий: ячейки всех линий отмечаются и очищаются после просмотра
+        boolean[] line = new boolean[board.size()];
+        for (int index = 0; index < board.size(); index++) {
+            if ( board.isEmpty(index) ) {
+                continue;
+            }
+            int x = board.x(index);
+            int y = board.y(index);
+            for (int[] direction : DIRECTIONS) {
+                // линия просматривается только от первой ячейки
+                int px = x - direction[0];
+                int py = y - direction[1];
+                if ( board.contains(px, py) && board.getColor(board.index(px, py)) == board.getColor(index) ) {
+                    continue;
+                }
+                int length = 1;
+                while ( board.contains(x + length * direction[0], y + length * direction[1])
+                        && board.getColor(board.index(x + length * direction[0], y + length * direction[1]))
+                        == board.getColor(index) ) {
+                    length++;
+                }
+                for (int i = 0; length >= LINE && i < length; i++) {
+                    line[board.index(x + i * direction[0], y + i * direction[1])] = true;
+                }
+            }
+        }
+        for (int index = 0; index < board.size(); index++) {
+            if ( line[index] ) {
+                board.setColor(index, Board.EMPTY);
+            }
+        }
+    }
+
+    /**
+     * @return индексы всех ячеек поля с шарами (empty == false) либо пустых ячеек (empty == true).
+     */
+    static int[] cells(Board board, boolean empty) {
+        int[] cells = new int[board.size()];
+        int count = 0;
+        for (int index = 0; index < board.size(); index++) {
+            if ( board.isEmpty(index) == empty ) {
+                cells[count++] = index;
+            }
+        }
+        return Arrays.copyOf(cells, count);
+    }
+}
@@ -0,0 +1,133 @@
+package com.game.lines.bench;
+
+import com.game.lines.logic.Game;
+import com.game.lines.model.Board;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Бенчмарки "горячих" участков игрового движка на полях всех поддерживаемых размеров и на большом
+ * синтетическом поле 100 X 100. Поле заполняется шарами на долю fill (без готовых линий).
+ * <p>
+ * Запуск с профилировщиком памяти: {@code java -jar target/benchmarks.jar -prof gc}.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class EngineBenchmark {
+    // количество заранее подготовленных пар ячеек для проверки ходов
+    private static final int PAIRS = 1024;
+
+    @Param({ "7", "9", "10", "12", "100" })
+    public int side;
+
+    @Param({ "0.3", "0.6", "0.9" })
+    public double fill;
+
+    private Game game;
+    private Board board;
+    private int[] from;
+    private int[] to;
+    private int pair;
+    private int[] neighbors;
+    private int[] target;
+
+    @Setup
+    public void setUp() {
+        SplittableRandom random = new SplittableRandom(42);
+        game = new Game(side, random);
+        board = game.getBoard();
+        Boards.fill(board, fill, random);
+        int[] balls = Boards.cells(board, false);
+        int[] empty = Boards.cells(board, true);
+        from = new int[PAIRS];
+        to = new int[PAIRS];
+        for (int i = 0; i < PAIRS; i++) {
+            from[i] = balls[random.nextInt(balls.length)];
+            to[i] = empty[random.nextInt(empty.length)];
+        }
+        neighbors = new int[4];
+        target = new int[1];
+    }
+
+    private int nextPair() {
+        return pair = (pair + 1) & (PAIRS - 1);
+    }
+
+    /**
+     * Проверка возможности хода по индексу областей пустых ячеек (поле не меняется между вызовами).
+     */
+    @Benchmark
+    public boolean canMove() {
+        int i = nextPair();
+        return game.canMove(from[i], to[i]);
+    }
+
+    /**
+     * Проверка возможности хода сразу после изменения поля: включает перестроение индекса областей.
+     */
+    @Benchmark
+    public boolean canMoveAfterChange() {
+        int i = nextPair();
+        byte color = board.getColor(from[i]);
+        board.setColor(to[i], color);
+        board.setColor(to[i], Board.EMPTY);
+        return game.canMove(from[i], to[i]);
+    }
+
+    /**
+     * Поиск кратчайшего пути шара (поиск в ширину).
+     */
+    @Benchmark
+    public boolean findPath() {
+        int i = nextPair();
+        return game.findPath(from[i], to[i]);
+    }
+
+    /**
+     * Поиск линий через ячейку с шаром (обычный ход без удаления линии).
+     */
+    @Benchmark
+    public int linesSearch() {
+        target[0] = from[nextPair()];
+        return game.clearLines(target, 1);
+    }
+
+    /**
+     * Генерация трёх шаров с последующей очисткой ячеек (поле возвращается в исходное состояние).
+     */
+    @Benchmark
+    public int spawn() {
+        int[] spawned = game.spawn(Game.SPAWN_BALLS);
+        for (int cell : spawned) {
+            board.setColor(cell, Board.EMPTY);
+        }
+        return spawned.length;
+    }
+
+    /**
+     * Поиск соседей всех ячеек поля.
+     */
+    @Benchmark
+    public void neighbors(Blackhole blackhole) {
+        for (int index = 0; index < board.size(); index++) {
+            blackhole.consume(board.neighbors(index, neighbors));
+        }
+    }
+}
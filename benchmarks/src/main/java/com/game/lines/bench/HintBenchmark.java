@@ -0,0 +1,73 @@
+package com.game.lines.bench;
+
+import com.game.lines.logic.Game;
+import com.game.lines.logic.MoveEvaluator;
+import com.game.lines.model.Board;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Бенчмарки подсказки лучшего хода ({@link MoveEvaluator}) в пуле потоков и в одном потоке.
+ * Перед каждой оценкой поле изменяется и возвращается в исходное состояние, чтобы результат не брался из кэша.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class HintBenchmark {
+
+    @Param({ "7", "10", "12" })
+    public int side;
+
+    @Param({ "0.3", "0.6", "0.9" })
+    public double fill;
+
+    private Game game;
+    private Board board;
+    private int empty;
+    private MoveEvaluator parallel;
+    private MoveEvaluator sequential;
+
+    @Setup
+    public void setUp() {
+        SplittableRandom random = new SplittableRandom(42);
+        game = new Game(side, random);
+        board = game.getBoard();
+        Boards.fill(board, fill, random);
+        empty = Boards.cells(board, true)[0];
+        parallel = new MoveEvaluator(ForkJoinPool.commonPool());
+        sequential = new MoveEvaluator(null);
+    }
+
+    private void touch() {
+        board.setColor(empty, (byte) 1);
+        board.setColor(empty, Board.EMPTY);
+    }
+
+    @Benchmark
+    public long parallel() {
+        touch();
+        return parallel.best(game);
+    }
+
+    @Benchmark
+    public long sequential() {
+        touch();
+        return sequential.best(game);
+    }
+}
@@ -0,0 +1,202 @@
+package com.game.lines.bench;
+
+import com.game.lines.logic.Game;
+import com.game.lines.logic.Replay;
+import com.game.lines.util.LatencyHistogram;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Properties;
+import java.util.TreeMap;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Макро-бенчмарк игрового движка: воспроизведение корпуса записанных игр ({@link Replay}) на полях всех размеров.
+ * Каждое действие проходит полный ход движка - проверку хода, поиск линий, генерацию шаров и проверку окончания
+ * игры. Для каждого размера поля измеряется количество ходов в секунду и 99-й процентиль задержки хода;
+ * результаты сравниваются с базовыми значениями, сохранёнными в репозитории, и прогон завершается с ошибкой
+ * (код 1), если производительность ухудшилась больше допустимого или итог хотя бы одной игры (очки, количество
+ * шаров и ходов, хэш поля) отличается от записанного.
+ * <p>
+ * Запуск: {@code mvn -f benchmarks/pom.xml verify -Preplay [-Dreplay.threshold=0.25] [-Dreplay.update=true]}
+ * либо {@code java -cp target/benchmarks.jar com.game.lines.bench.ReplayBenchmark [corpus=каталог]
+ * [baseline=файл] [warmup=N] [rounds=N] [threshold=доля] [update=true]}, где threshold - допустимое ухудшение
+ * (0.25 - на 25%), а update=true записывает измеренные значения как новые базовые.
+ */
+public final class ReplayBenchmark {
+    private static final String TURNS_PER_SECOND = ".turns-per-second";
+    private static final String P99_MICROS = ".p99-micros";
+
+    private ReplayBenchmark() { }
+
+    public static void main(String[] args) throws IOException {
+        Map<String, String> options = new HashMap<>();
+        for (String arg : args) {
+            int separator = arg.indexOf('=');
+            if ( separator < 0 ) {
+                throw new IllegalArgumentException("Expected key=value, got: " + arg);
+            }
+            options.put(arg.substring(0, separator), arg.substring(separator + 1));
+        }
+        Path corpus = Paths.get(options.getOrDefault("corpus", "corpus"));
+        Path baselinePath = Paths.get(options.getOrDefault("baseline", corpus.resolve("baseline.properties").toString()));
+        int warmup = Integer.parseInt(options.getOrDefault("warmup", "100"));
+        int rounds = Integer.parseInt(options.getOrDefault("rounds", "300"));
+        double threshold = Double.parseDouble(options.getOrDefault("threshold", "0.25"));
+        boolean update = Boolean.parseBoolean(options.getOrDefault("update", "false"));
+
+        Map<Integer, List<Entry>> sizes = load(corpus);
+        Properties baseline = new Properties();
+        if ( Files.isRegularFile(baselinePath) ) {
+            try (Reader reader = Files.newBufferedReader(baselinePath, StandardCharsets.UTF_8)) {
+                baseline.load(reader);
+            }
+        } else if ( !update ) {
+            throw new IllegalArgumentException("No baseline " + baselinePath + ", run with update=true to create it");
+        }
+        System.out.printf(Locale.ROOT, "corpus=%s replays=%d warmup=%d rounds=%d threshold=%.2f%n", corpus,
+                sizes.values().stream().mapToInt(List::size).sum(), warmup, rounds, threshold);
+
+        // прогрев на всех размерах сразу: компилятор видит все варианты полей до начала измерений
+        for (int i = 0; i < warmup; i++) {
+            for (List<Entry> entries : sizes.values()) {
+                run(entries, null);
+            }
+        }
+        Map<String, String> measured = new TreeMap<>();
+        boolean failed = false;
+        for (Map.Entry<Integer, List<Entry>> size : sizes.entrySet()) {
+            int side = size.getKey();
+            List<Entry> entries = size.getValue();
+            LatencyHistogram latency = new LatencyHistogram();
+            long turns = 0;
+            long start = System.nanoTime();
+            for (int i = 0; i < rounds; i++) {
+                turns += run(entries, latency);
+            }
+            double turnsPerSecond = turns / ((System.nanoTime() - start) / 1e9);
+            double p99 = latency.snapshot().getP99Micros();
+
+            List<String> problems = new ArrayList<>();
+            for (Entry entry : entries) {
+                String expected = baseline.getProperty(entry.name);
+                if ( expected != null && !expected.equals(entry.result) ) {
+                    problems.add(entry.name + " finished with " + entry.result + ", expected " + expected);
+                }
+                measured.put(entry.name, entry.result);
+            }
+            String baseTurns = baseline.getProperty(side + TURNS_PER_SECOND);
+            String baseP99 = baseline.getProperty(side + P99_MICROS);
+            if ( baseTurns != null && turnsPerSecond < Double.parseDouble(baseTurns) * (1 - threshold) ) {
+                problems.add(String.format(Locale.ROOT, "turns/s %.0f is below baseline %s", turnsPerSecond, baseTurns));
+            }
+            if ( baseP99 != null && p99 > Double.parseDouble(baseP99) * (1 + threshold) ) {
+                problems.add(String.format(Locale.ROOT, "p99 %.2fus is above baseline %sus", p99, baseP99));
+            }
+            measured.put(side + TURNS_PER_SECOND, String.format(Locale.ROOT, "%.0f", turnsPerSecond));
+            measured.put(side + P99_MICROS, String.format(Locale.ROOT, "%.2f", p99));
+
+            System.out.printf(Locale.ROOT, "%2dx%-2d replays=%d turns=%d turns/s=%.0f (baseline %s) latency %s%n",
+                    side, side, entries.size(), turns, turnsPerSecond, baseTurns == null ? "-" : baseTurns,
+                    latency.snapshot());
+            for (String problem : problems) {
+                System.out.println("  FAIL " + problem);
+            }
+            failed |= !problems.isEmpty();
+        }
+
+        if ( update ) {
+            write(baselinePath, measured);
+            System.out.println("Baseline written to " + baselinePath);
+        } else if ( failed ) {
+            System.out.println("Regression against " + baselinePath);
+            System.exit(1);
+        }
+    }
+
+    /**
+     * Чтение корпуса: записи игр {@code *.lnr}, сгруппированные по размеру поля.
+     */
+    private static Map<Integer, List<Entry>> load(Path corpus) throws IOException {
+        List<Path> paths;
+        try (Stream<Path> files = Files.list(corpus)) {
+            paths = files.filter(file -> file.toString().endsWith(".lnr")).sorted().collect(Collectors.toList());
+        }
+        if ( paths.isEmpty() ) {
+            throw new IllegalArgumentException("No replays in " + corpus);
+        }
+        Map<Integer, List<Entry>> sizes = new TreeMap<>();
+        for (Path path : paths) {
+            Replay replay = Replay.read(path);
+            sizes.computeIfAbsent(replay.getSide(), side -> new ArrayList<>())
+                    .add(new Entry(path.getFileName().toString(), replay));
+        }
+        return sizes;
+    }
+
+    /**
+     * Воспроизведение всех игр одного размера поля.
+     *
+     * @param latency распределение задержки хода либо null (прогрев).
+     * @return количество выполненных действий.
+     */
+    private static long run(List<Entry> entries, LatencyHistogram latency) {
+        long turns = 0;
+        for (Entry entry : entries) {
+            Replay replay = entry.replay;
+            Game game = replay.start();
+            int count = replay.getActionCount();
+            for (int i = 0; i < count; i++) {
+                long start = System.nanoTime();
+                // действие и проверка окончания игры, как в конце хода в игре с интерфейсом
+                boolean done = replay.step(game, i);
+                boolean over = !game.hasMove();
+                if ( latency != null ) {
+                    latency.record(System.nanoTime() - start);
+                }
+                if ( !done || over && i < count - 1 ) {
+                    throw new IllegalStateException(entry.name + " diverged at action " + i);
+                }
+            }
+            turns += count;
+            entry.result = String.format(Locale.ROOT, "%d %d %d %016x", game.getPoints(), game.getBalls(),
+                    game.getMoves(), game.getBoard().getHash());
+        }
+        return turns;
+    }
+
+    private static void write(Path path, Map<String, String> values) throws IOException {
+        try (Writer writer = Files.newBufferedWriter(path, StandardCharsets.UTF_8)) {
+            writer.write("# Базовые значения ReplayBenchmark: ходов в секунду и p99 задержки хода (мкс) по размерам поля,\n");
+            writer.write("# итог каждой игры корпуса (очки, шары, ходы, хэш поля).\n");
+            for (Map.Entry<String, String> value : values.entrySet()) {
+                writer.write(value.getKey() + "=" + value.getValue() + "\n");
+            }
+        }
+    }
+
+    /**
+     * Запись игры корпуса и итог её последнего воспроизведения.
+     */
+    private static final class Entry {
+        final String name;
+        final Replay replay;
+        String result;
+
+        Entry(String name, Replay replay) {
+            this.name = name;
+            this.replay = replay;
+        }
+    }
+}
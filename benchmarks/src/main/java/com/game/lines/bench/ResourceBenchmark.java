@@ -0,0 +1,48 @@
+package com.game.lines.bench;
+
+import com.game.lines.Application;
+import com.game.lines.util.ResourceManager;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.awt.image.BufferedImage;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Бенчмарки доступа к изображениям шаров (кэш {@link ResourceManager}).
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Djava.awt.headless=true")
+public class ResourceBenchmark {
+    // размер изображения шара на поле 10 X 10 (подготовлен при загрузке класса) и размер, которого нет в кэше
+    private static final int[] GRID = Application.GRID_SIZES[3];
+    private static final int CACHED_SIZE = ResourceManager.ballSize(ResourceManager.tileSize(GRID[0], GRID[1], GRID[2]));
+    private static final int OTHER_SIZE = 37;
+
+    /**
+     * Изображения шаров для размера ячейки одного из стандартных полей (копия кэша).
+     */
+    @Benchmark
+    public BufferedImage[] cachedBallImages() {
+        return ResourceManager.getBallImages(CACHED_SIZE);
+    }
+
+    /**
+     * Изображения шаров для нестандартного размера ячейки (масштабирование).
+     */
+    @Benchmark
+    public BufferedImage[] scaledBallImages() {
+        return ResourceManager.getBallImages(OTHER_SIZE);
+    }
+}
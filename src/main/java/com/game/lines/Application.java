@@ -1,26 +1,80 @@
 package com.game.lines;
 
 import com.game.lines.gui.GameInitializer;
+import com.game.lines.logic.TurnMetrics;
+import com.game.lines.net.GameServer;
+import com.game.lines.sim.Playback;
+import com.game.lines.sim.SessionLoad;
+import com.game.lines.sim.Simulator;
 
-public class Application {
-
-    public static void main(String[] args) {
-        // 7 X 7
-//        new GameInitializer(   420,500, 7, 7);
-
-        // 8 X 8
-//        new GameInitializer(   466,555, 8, 8);
+import javax.swing.*;
+import java.io.IOException;
+import java.util.Arrays;
 
-        // 9 X 9
-//        new GameInitializer(   545, 640, 9, 9);
-
-        // 10 X 10
-        new GameInitializer(   600,630, 10, 10);
+public class Application {
+    /**
+     * Поддерживаемые размеры игры: { ширина окна, высота окна, длина стороны поля }.
+     * Высота окна включает строку кнопок игры над полем (35 пикселей).
+     */
+    public static final int[][] GRID_SIZES = {
+            { 420, 535,  7 },  // 7 X 7
+            { 466, 590,  8 },  // 8 X 8
+            { 545, 675,  9 },  // 9 X 9
+            { 600, 665, 10 },  // 10 X 10
+            { 660, 725, 11 },  // 11 X 11
+            { 690, 805, 12 }   // 12 X 12
+    };
+    // индекс размера игры по умолчанию в массиве GRID_SIZES (10 X 10)
+    private static final int DEFAULT_SIZE = 3;
+    // размер окна для полей, которых нет в GRID_SIZES (поле прокручивается и масштабируется)
+    private static final int[] LARGE_FRAME = { 900, 930 };
 
-        // 11 X 11
-//        new GameInitializer(   660,690, 11, 11);
+    public static void main(String[] args) throws IOException, InterruptedException {
+        // режим моделирования игр без интерфейса: --simulate [key=value ...] (см. Simulator)
+        if ( args.length > 0 && args[0].equals("--simulate") ) {
+            Simulator.main(Arrays.copyOfRange(args, 1, args.length));
+            return;
+        }
+        // воспроизведение записанных игр без интерфейса: --replay файл|каталог ... (см. Playback)
+        if ( args.length > 0 && args[0].equals("--replay") ) {
+            Playback.main(Arrays.copyOfRange(args, 1, args.length));
+            return;
+        }
+        // нагрузочный прогон движка сессий: --sessions [key=value ...] (см. SessionLoad)
+        if ( args.length > 0 && args[0].equals("--sessions") ) {
+            SessionLoad.main(Arrays.copyOfRange(args, 1, args.length));
+            return;
+        }
+        // игровой сервер для внешних ботов: --server [port=N] [threads=N] (см. GameServer)
+        if ( args.length > 0 && args[0].equals("--server") ) {
+            GameServer.main(Arrays.copyOfRange(args, 1, args.length));
+            return;
+        }
+        int[] size = GRID_SIZES[DEFAULT_SIZE];
+        // размер поля: --size N
+        if ( args.length > 1 && args[0].equals("--size") ) {
+            size = frameSize(Integer.parseInt(args[1]));
+        }
+        int[] frame = size;
+        // метрики ходов в JMX (см. TurnMetrics)
+        TurnMetrics.register();
+        // интерфейс создаётся в потоке обработки событий (EDT)
+        SwingUtilities.invokeLater( () -> new GameInitializer(frame[0], frame[1], frame[2], frame[2]) );
+    }
 
-        // 12 X 12
-//        new GameInitializer(   690,770, 12, 12);
+    /**
+     * @param side длина стороны поля.
+     * @return { ширина окна, высота окна, длина стороны поля }.
+     */
+    private static int[] frameSize(int side) {
+        if ( side < GRID_SIZES[0][2] ) {
+            throw new IllegalArgumentException("Grid side must be at least " + GRID_SIZES[0][2] + ", got: " + side);
+        }
+        for (int[] size : GRID_SIZES) {
+            if ( size[2] == side ) {
+                return size;
+            }
+        }
+        return new int[] { LARGE_FRAME[0], LARGE_FRAME[1], side };
     }
-}
\ No newline at end of file
+}
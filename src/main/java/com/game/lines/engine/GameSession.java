@@ -0,0 +1,233 @@
+package com.game.lines.engine;
+
+import com.game.lines.logic.Game;
+import com.game.lines.logic.Replay;
+import com.game.lines.logic.TurnJournal;
+import com.game.lines.model.Board;
+
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * Игровая сессия: одна игра со своим полем, счётчиками, генератором случайных чисел, журналом ходов,
+ * записью игры и выбранным шаром. Сессия не использует статического состояния, поэтому в одном процессе
+ * может существовать сколько угодно независимых сессий ({@link SessionEngine}).
+ * <p>
+ * Методы сессии потокобезопасны и не блокируются: действие ставится в очередь сессии и выполняется в общем
+ * пуле потоков строго по одному ({@link SerialExecutor}), а результат возвращается через
+ * {@link CompletableFuture}. Счётчики последнего выполненного действия можно читать из любого потока без
+ * ожидания.
+ */
+public final class GameSession {
+    // наибольшее количество действий, ожидающих выполнения
+    private static final int MAX_PENDING = 64;
+
+    private final long id;
+    private final Game game;
+    private final SerialExecutor executor;
+    private final List<SessionListener> listeners = new CopyOnWriteArrayList<>();
+    // выбранный шар либо -1 (используется только в задачах сессии)
+    private int selected = -1;
+
+    // счётчики после последнего выполненного действия (для чтения из других потоков)
+    private volatile int points;
+    private volatile int balls;
+    private volatile int moves;
+    private volatile boolean gameOver = true;
+
+    GameSession(long id, int side, Executor pool) {
+        this.id = id;
+        this.game = new Game(side, new SplittableRandom());
+        this.executor = new SerialExecutor(pool, MAX_PENDING);
+        game.setJournal(new TurnJournal());
+        game.setReplay(new Replay());
+        game.getBoard().setListener((index, color) -> {
+            for (SessionListener listener : listeners) {
+                listener.cellChanged(this, index, color);
+            }
+        });
+    }
+
+    public long getId() {
+        return id;
+    }
+
+    public int getSide() {
+        return game.getBoard().getSide();
+    }
+
+    public int getPoints() {
+        return points;
+    }
+
+    public int getBalls() {
+        return balls;
+    }
+
+    public int getMoves() {
+        return moves;
+    }
+
+    /**
+     * @return true, если игра не начата или закончена.
+     */
+    public boolean isGameOver() {
+        return gameOver;
+    }
+
+    public void addListener(SessionListener listener) {
+        listeners.add(listener);
+    }
+
+    public void removeListener(SessionListener listener) {
+        listeners.remove(listener);
+    }
+
+    /**
+     * Начало новой игры.
+     *
+     * @param seed начальное значение генератора случайных чисел игры.
+     */
+    public CompletableFuture<Void> newGame(long seed) {
+        return call(() -> {
+            selected = -1;
+            game.start(seed);
+            publish();
+            for (SessionListener listener : listeners) {
+                listener.gameStarted(this);
+            }
+            return null;
+        });
+    }
+
+    /**
+     * Нажатие на ячейку, как в интерфейсе игры: ячейка с шаром выбирает шар (повторное нажатие снимает выбор),
+     * пустая ячейка перемещает в неё выбранный шар.
+     */
+    public CompletableFuture<TurnResult> click(int index) {
+        return call(() -> {
+            checkIndex(index);
+            if ( !game.getBoard().isEmpty(index) ) {
+                TurnResult.Status status = index == selected ? TurnResult.Status.RELEASED : TurnResult.Status.SELECTED;
+                selected = status == TurnResult.Status.SELECTED ? index : -1;
+                return finish(status);
+            }
+            if ( selected < 0 ) {
+                return finish(TurnResult.Status.INVALID);
+            }
+            return turn(selected, index);
+        });
+    }
+
+    /**
+     * Перемещение шара из ячейки from в пустую ячейку to.
+     */
+    public CompletableFuture<TurnResult> move(int from, int to) {
+        return call(() -> {
+            checkIndex(from);
+            checkIndex(to);
+            if ( game.getBoard().isEmpty(from) || !game.getBoard().isEmpty(to) ) {
+                return finish(TurnResult.Status.INVALID);
+            }
+            return turn(from, to);
+        });
+    }
+
+    /**
+     * Отмена последнего хода.
+     *
+     * @return результат со статусом {@link TurnResult.Status#INVALID}, если отменять нечего.
+     */
+    public CompletableFuture<TurnResult> undo() {
+        return call(() -> {
+            selected = -1;
+            return finish(game.undo() ? TurnResult.Status.MOVED : TurnResult.Status.INVALID);
+        });
+    }
+
+    /**
+     * Повтор отменённого хода.
+     */
+    public CompletableFuture<TurnResult> redo() {
+        return call(() -> {
+            selected = -1;
+            return finish(game.redo() ? TurnResult.Status.MOVED : TurnResult.Status.INVALID);
+        });
+    }
+
+    /**
+     * @return копия цветов ячеек поля.
+     */
+    public CompletableFuture<byte[]> snapshot() {
+        return call(() -> {
+            Board board = game.getBoard();
+            byte[] colors = new byte[board.size()];
+            for (int i = 0; i < colors.length; i++) {
+                colors[i] = board.getColor(i);
+            }
+            return colors;
+        });
+    }
+
+    /**
+     * Выполнение произвольного действия с игрой сессии (например, выбора хода стратегией бота).
+     * Игру можно использовать только внутри действия.
+     */
+    public <T> CompletableFuture<T> submit(Function<Game, T> action) {
+        return call(() -> {
+            T value = action.apply(game);
+            publish();
+            return value;
+        });
+    }
+
+    private TurnResult turn(int from, int to) {
+        selected = -1;
+        return finish(game.turn(from, to) ? TurnResult.Status.MOVED : TurnResult.Status.INVALID);
+    }
+
+    private TurnResult finish(TurnResult.Status status) {
+        publish();
+        TurnResult result = new TurnResult(status, points, balls, moves, gameOver);
+        for (SessionListener listener : listeners) {
+            listener.turnFinished(this, result);
+        }
+        return result;
+    }
+
+    private void publish() {
+        points = game.getPoints();
+        balls = game.getBalls();
+        moves = game.getMoves();
+        gameOver = !game.hasMove();
+    }
+
+    private void checkIndex(int index) {
+        if ( index < 0 || index >= game.getBoard().size() ) {
+            throw new IllegalArgumentException("Cell index out of range: " + index);
+        }
+    }
+
+    private <T> CompletableFuture<T> call(Supplier<T> action) {
+        CompletableFuture<T> result = new CompletableFuture<>();
+        try {
+            executor.execute(() -> {
+                try {
+                    result.complete(action.get());
+                } catch (Throwable e) {
+                    // исключение не должно выйти из задачи: иначе очередь сессии остановится
+                    result.completeExceptionally(e);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            result.completeExceptionally(e);
+        }
+        return result;
+    }
+}
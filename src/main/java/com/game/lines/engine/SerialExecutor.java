@@ -0,0 +1,75 @@
+package com.game.lines.engine;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Последовательное выполнение задач одной сессии в общем пуле потоков: задачи выполняются по одной в порядке
+ * поступления, но не обязательно в одном и том же потоке. Каждая следующая задача видит все изменения,
+ * сделанные предыдущими, поэтому состояние сессии не требует синхронизации.
+ * <p>
+ * Поток пула выполняет не более {@link #BATCH} задач подряд и затем возвращает сессию в очередь пула,
+ * чтобы загруженная сессия не задерживала остальные.
+ */
+final class SerialExecutor implements Executor {
+    // количество задач, выполняемых подряд без возврата в очередь пула
+    private static final int BATCH = 16;
+
+    private static final Logger executorLogger = Logger.getLogger(SerialExecutor.class.getName());
+
+    private final Executor pool;
+    private final int capacity;
+    private final Queue<Runnable> tasks = new ConcurrentLinkedQueue<>();
+    // количество поставленных и ещё не выполненных задач
+    private final AtomicInteger pending = new AtomicInteger();
+
+    /**
+     * @param pool     общий пул потоков.
+     * @param capacity наибольшее количество ожидающих задач.
+     */
+    SerialExecutor(Executor pool, int capacity) {
+        this.pool = pool;
+        this.capacity = capacity;
+    }
+
+    /**
+     * @throws RejectedExecutionException если ожидающих задач слишком много либо пул потоков остановлен.
+     */
+    @Override
+    public void execute(Runnable task) {
+        if ( pending.get() >= capacity ) {
+            throw new RejectedExecutionException("Too many pending session tasks");
+        }
+        tasks.add(task);
+        if ( pending.getAndIncrement() == 0 ) {
+            try {
+                pool.execute(this::drain);
+            } catch (RejectedExecutionException e) {
+                // пул остановлен: задача не будет выполнена и не должна учитываться
+                tasks.remove(task);
+                pending.decrementAndGet();
+                throw e;
+            }
+        }
+    }
+
+    private void drain() {
+        for (int i = 0; i < BATCH; i++) {
+            try {
+                tasks.poll().run();
+            } catch (Throwable e) {
+                // очередь продолжает выполняться: иначе счётчик не уменьшится и сессия остановится
+                executorLogger.log(Level.WARNING, "Session task failed", e);
+            }
+            if ( pending.decrementAndGet() == 0 ) {
+                return;
+            }
+        }
+        pool.execute(this::drain);
+    }
+}
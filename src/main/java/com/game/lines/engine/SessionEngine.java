@@ -0,0 +1,74 @@
+package com.game.lines.engine;
+
+import java.util.Collection;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Движок сессий: множество независимых игр ({@link GameSession}) в одном процессе, действия которых
+ * выполняются небольшим общим пулом потоков. Поток занят только во время выполнения действия, поэтому
+ * тысячи сессий, ожидающих ходов ботов или игроков, не требуют тысяч потоков.
+ */
+public final class SessionEngine implements AutoCloseable {
+    private final ForkJoinPool pool;
+    private final ConcurrentMap<Long, GameSession> sessions = new ConcurrentHashMap<>();
+    private final AtomicLong ids = new AtomicLong();
+
+    /**
+     * @param threads количество потоков пула.
+     */
+    public SessionEngine(int threads) {
+        // асинхронный режим: задачи сессий выполняются в порядке поступления
+        this.pool = new ForkJoinPool(threads, ForkJoinPool.defaultForkJoinWorkerThreadFactory, null, true);
+    }
+
+    /**
+     * Создание сессии. Игра в ней начинается вызовом {@link GameSession#newGame(long)}.
+     *
+     * @param side длина стороны поля.
+     */
+    public GameSession create(int side) {
+        GameSession session = new GameSession(ids.incrementAndGet(), side, pool);
+        sessions.put(session.getId(), session);
+        return session;
+    }
+
+    /**
+     * @return сессия с заданным идентификатором либо null.
+     */
+    public GameSession get(long id) {
+        return sessions.get(id);
+    }
+
+    /**
+     * Удаление сессии из движка; действия, уже поставленные в её очередь, будут выполнены.
+     */
+    public void remove(long id) {
+        sessions.remove(id);
+    }
+
+    public Collection<GameSession> getSessions() {
+        return sessions.values();
+    }
+
+    public int size() {
+        return sessions.size();
+    }
+
+    /**
+     * Остановка пула потоков после выполнения поставленных действий.
+     */
+    @Override
+    public void close() {
+        pool.shutdown();
+        try {
+            pool.awaitTermination(1, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        sessions.clear();
+    }
+}
@@ -0,0 +1,22 @@
+package com.game.lines.engine;
+
+/**
+ * Получатель событий сессии. Методы вызываются в потоке, выполняющем задачу сессии, по одному
+ * и в порядке событий; они не должны блокироваться надолго.
+ */
+public interface SessionListener {
+    /**
+     * Начата новая игра (поле уже заполнено начальными шарами, о которых сообщено через {@link #cellChanged}).
+     */
+    default void gameStarted(GameSession session) { }
+
+    /**
+     * Цвет ячейки изменился.
+     */
+    default void cellChanged(GameSession session, int index, byte color) { }
+
+    /**
+     * Действие игрока выполнено.
+     */
+    default void turnFinished(GameSession session, TurnResult result) { }
+}
@@ -0,0 +1,71 @@
+package com.game.lines.engine;
+
+/**
+ * Результат действия игрока в сессии ({@link GameSession#click(int)}, {@link GameSession#move(int, int)}).
+ */
+public final class TurnResult {
+    /**
+     * Итог действия.
+     */
+    public enum Status {
+        // шар перемещён, ход выполнен
+        MOVED,
+        // шар выбран
+        SELECTED,
+        // выбор шара снят
+        RELEASED,
+        // действие невозможно (нет пути, ячейка занята, шар не выбран)
+        INVALID
+    }
+
+    private final Status status;
+    private final int points;
+    private final int balls;
+    private final int moves;
+    private final boolean gameOver;
+
+    TurnResult(Status status, int points, int balls, int moves, boolean gameOver) {
+        this.status = status;
+        this.points = points;
+        this.balls = balls;
+        this.moves = moves;
+        this.gameOver = gameOver;
+    }
+
+    public Status getStatus() {
+        return status;
+    }
+
+    /**
+     * @return очки после действия.
+     */
+    public int getPoints() {
+        return points;
+    }
+
+    /**
+     * @return количество удалённых шаров после действия.
+     */
+    public int getBalls() {
+        return balls;
+    }
+
+    /**
+     * @return количество ходов после действия.
+     */
+    public int getMoves() {
+        return moves;
+    }
+
+    /**
+     * @return true, если после действия на поле не осталось возможных ходов.
+     */
+    public boolean isGameOver() {
+        return gameOver;
+    }
+
+    @Override
+    public String toString() {
+        return status + " points=" + points + " balls=" + balls + " moves=" + moves + (gameOver ? " game over" : "");
+    }
+}
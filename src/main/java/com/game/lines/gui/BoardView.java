@@ -0,0 +1,581 @@
+package com.game.lines.gui;
+
+import com.game.lines.logic.GameLoop;
+import com.game.lines.logic.Play;
+import com.game.lines.logic.TurnMetrics;
+import com.game.lines.model.Board;
+import com.game.lines.util.AsyncLog;
+import com.game.lines.util.ResourceManager;
+
+import javax.swing.*;
+import java.awt.*;
+import java.awt.event.InputEvent;
+import java.awt.event.MouseAdapter;
+import java.awt.event.MouseEvent;
+import java.awt.event.MouseWheelEvent;
+import java.awt.image.BufferedImage;
+import java.util.logging.Logger;
+
+/**
+ * Представление игрового поля: всё поле рисуется одним компонентом, без отдельного компонента на каждую ячейку.
+ * Рисуются только ячейки, пересекающие область перерисовки, поэтому для большого поля, размещённого
+ * в области прокрутки ({@link JScrollPane}), время отрисовки и память под изображения зависят от размера окна,
+ * а не от размера поля. Фон поля с линиями сетки, если он не слишком велик, рисуется один раз
+ * и затем копируется из кэша.
+ * <p>
+ * Цвета ячеек копируются в EDT из слушателя поля {@link Board}; при изменении ячейки перерисовывается
+ * только её прямоугольник, и Swing объединяет такие прямоугольники одного хода в одну перерисовку.
+ * В области прокрутки масштаб меняется колесом мыши с нажатой клавишей Ctrl, при этом точка поля
+ * под курсором остаётся на месте.
+ * <p>
+ * Перемещение шара по найденному пути и исчезновение удалённых шаров анимируются таймером Swing с фиксированным
+ * шагом ({@value #FRAME_RATE} шагов в секунду): состояние анимации изменяется только целыми шагами, пропущенные
+ * кадры догоняются, а перерисовываются лишь прямоугольники анимируемых шаров. Таймер работает только
+ * во время анимации; её состояние хранится в заранее выделенных массивах, а область перерисовки и линия рамки
+ * выделения не создаются заново, поэтому шаг анимации и отрисовка не выделяют память в коде представления.
+ * Движок не ждёт анимацию: если поле изменилось раньше, чем она закончилась, анимация прерывается.
+ */
+public class BoardView extends JComponent implements Scrollable {
+    private static final long serialVersionUID = 1L;
+
+    // размер ячейки по умолчанию (в пикселях)
+    public static final int DEFAULT_TILE = 40;
+    // минимальный и максимальный размеры ячейки (в пикселях)
+    private static final int MIN_TILE = 4;
+    private static final int MAX_TILE = 96;
+    // размер ячейки, начиная с которого вместо изображения шара рисуется квадрат его цвета
+    private static final int IMAGE_TILE = 12;
+    // изменение масштаба за один щелчок колеса мыши
+    private static final double ZOOM_STEP = 1.25;
+    // наибольший размер кэшируемого фона поля (в пикселях по каждой стороне)
+    private static final int MAX_BACKGROUND = 1024;
+    private static final Color GRID_COLOR = Color.BLACK;
+    private static final Color SELECTION_COLOR = Color.RED;
+    private static final Color HINT_COLOR = new Color(0, 170, 0);
+    // шагов анимации в секунду и длительность шага
+    private static final int FRAME_RATE = 60;
+    private static final long STEP_NANOS = 1000000000L / FRAME_RATE;
+    // наибольшее количество шагов, выполняемых за один кадр (после задержки EDT анимация не ускоряется)
+    private static final int MAX_STEPS = 4;
+    // шагов на ячейку пути и наибольшая длительность перемещения (в шагах): перемещение заканчивается
+    // до следующей фазы хода (Play.PHASE_DELAY)
+    private static final int CELL_STEPS = 3;
+    private static final int MAX_MOVE_STEPS = 24;
+    // длительность исчезновения шара (в шагах) и наибольшее количество одновременно исчезающих шаров
+    private static final int FADE_STEPS = 18;
+    private static final int MAX_FADES = 64;
+    // прозрачность исчезающего шара для каждого шага
+    private static final AlphaComposite[] FADE_ALPHA = new AlphaComposite[FADE_STEPS];
+
+    static {
+        for (int i = 0; i < FADE_STEPS; i++) {
+            FADE_ALPHA[i] = AlphaComposite.getInstance(AlphaComposite.SRC_OVER, 1f - (float) i / FADE_STEPS);
+        }
+    }
+
+    private static final Logger viewLogger = Logger.getLogger(BoardView.class.getName());
+
+    private final int side;
+    // цвета ячеек поля, видимые в EDT (изменяются только в EDT)
+    private final byte[] colors;
+    // размер ячейки в пикселях
+    private int tile;
+    // изображения шаров, масштабированные под текущий размер ячейки, и их основные цвета
+    private BufferedImage[] balls;
+    private final Color[] ballColors = new Color[Board.COLORS];
+    // фон поля с линиями сетки для текущего размера ячейки (создаётся при первой отрисовке)
+    private BufferedImage background;
+    // линия выделения выбранной ячейки для текущего размера ячейки
+    private BasicStroke selectionStroke;
+    // область перерисовки текущей отрисовки (используется повторно, только в EDT)
+    private final Rectangle clipBounds = new Rectangle();
+    // индекс выбранной ячейки либо -1
+    private int selected = -1;
+    // индекс ячейки, отмеченной подсказкой, либо -1
+    private int hint = -1;
+
+    // таймер анимации (работает, пока есть анимируемые шары) и время, не отработанное шагами анимации
+    private final Timer animator;
+    private long lastFrame;
+    private long lag;
+    // перемещаемый шар: ячейки пути от начальной до целевой, цвет, текущий и последний шаги, положение в пикселях
+    private int[] movePath;
+    private byte moveColor = Board.EMPTY;
+    private int moveStep;
+    private int moveSteps;
+    private int moveX;
+    private int moveY;
+    // начальная ячейка перемещения, пока её освобождение не получено (освобождение не анимируется), либо -1
+    private int moveFrom = -1;
+    // исчезающие шары: ячейка, цвет и шаг
+    private final int[] fadeCells = new int[MAX_FADES];
+    private final byte[] fadeColors = new byte[MAX_FADES];
+    private final int[] fadeSteps = new int[MAX_FADES];
+    private int fades;
+
+    /**
+     * @param board игровое поле.
+     * @param tile  начальный размер ячейки в пикселях.
+     */
+    public BoardView(Board board, int tile) {
+        this.side = board.getSide();
+        this.colors = new byte[board.size()];
+        for (int i = 0; i < colors.length; i++) {
+            colors[i] = board.getColor(i);
+        }
+        setOpaque(true);
+        setBackground(Color.WHITE);
+        setTile(clampTile(tile));
+        animator = new Timer(1000 / FRAME_RATE, e -> animate());
+        // изменения поля передаются в EDT пакетами игрового цикла
+        board.setListener( (index, color) -> GameLoop.ui(() -> cellChanged(index, color)) );
+
+        MouseAdapter mouse = new MouseAdapter() {
+            @Override
+            public void mousePressed(MouseEvent e) {
+                int index = indexAt(e.getX(), e.getY());
+                if ( index >= 0 ) {
+                    cellPressed(index);
+                }
+            }
+
+            @Override
+            public void mouseWheelMoved(MouseWheelEvent e) {
+                JScrollPane scrollPane = (JScrollPane) SwingUtilities.getAncestorOfClass(JScrollPane.class, BoardView.this);
+                if ( scrollPane == null ) {
+                    return;
+                }
+                if ( (e.getModifiersEx() & InputEvent.CTRL_DOWN_MASK) != 0 ) {
+                    zoom(scrollPane.getViewport(), e.getPoint(), Math.pow(ZOOM_STEP, -e.getPreciseWheelRotation()));
+                } else {
+                    // без Ctrl колесо прокручивает поле
+                    scrollPane.dispatchEvent(SwingUtilities.convertMouseEvent(BoardView.this, e, scrollPane));
+                }
+            }
+        };
+        addMouseListener(mouse);
+        addMouseWheelListener(mouse);
+    }
+
+    /**
+     * Обработка нажатия на ячейку.
+     * Если в ячейке есть шар, то он выбирается (выделяется цветом), а выделение с предыдущего выбранного шара
+     * снимается; повторное нажатие на выбранный шар снимает выделение. Если ячейка пуста и шар выбран,
+     * то выполняется игровой ход (перемещение шара в пустую ячейку).
+     *
+     * @param index индекс нажатой ячейки поля.
+     */
+    private void cellPressed(int index) {
+        if ( colors[index] != Board.EMPTY ) {
+            if ( index == selected ) {
+                select(-1);
+                AsyncLog.info(viewLogger, "Cell {0} released", index);
+                GuiManager.getInfoLabel().setText("Ячейка освобождена.");
+            } else {
+                select(index);
+                AsyncLog.info(viewLogger, "Cell {0} selected", index);
+                GuiManager.getInfoLabel().setText("Шар выбран.");
+            }
+        } else {
+            GuiManager.getInfoLabel().setText("Выберите шар!");
+            if ( selected >= 0 && Play.moveInit(selected, index) ) {
+                select(-1);
+            }
+        }
+    }
+
+    /**
+     * Отображение подсказки: шар выбирается, а ячейка, в которую его следует переместить, отмечается.
+     *
+     * @param from индекс ячейки с шаром.
+     * @param to   индекс пустой ячейки.
+     */
+    public void showHint(int from, int to) {
+        select(from);
+        hint = to;
+        repaintCell(hint);
+    }
+
+    private void select(int index) {
+        clearHint();
+        if ( selected >= 0 ) {
+            repaintCell(selected);
+        }
+        selected = index;
+        if ( selected >= 0 ) {
+            repaintCell(selected);
+        }
+    }
+
+    private void clearHint() {
+        if ( hint >= 0 ) {
+            repaintCell(hint);
+            hint = -1;
+        }
+    }
+
+    /**
+     * Изменение ячейки поля (вызывается в EDT). Подсказка после изменения поля теряет смысл и снимается.
+     */
+    private void cellChanged(int index, byte color) {
+        clearHint();
+        if ( moveColor != Board.EMPTY && index == movePath[movePath.length - 1] && color != moveColor ) {
+            // целевая ячейка изменилась раньше окончания перемещения (например, шар вошёл в линию)
+            stopMove();
+        }
+        if ( color == Board.EMPTY && colors[index] != Board.EMPTY ) {
+            if ( index == moveFrom ) {
+                moveFrom = -1;
+            } else {
+                startFade(index, colors[index]);
+            }
+        } else if ( color != Board.EMPTY ) {
+            stopFade(index);
+        }
+        colors[index] = color;
+        if ( color == Board.EMPTY && index == selected ) {
+            selected = -1;
+        }
+        repaintCell(index);
+    }
+
+    /**
+     * Анимация перемещения шара (вызывается в EDT до изменения ячеек хода). Пока шар движется,
+     * целевая ячейка не рисуется.
+     *
+     * @param path ячейки пути от начальной до целевой включительно.
+     */
+    public void animateMove(int[] path) {
+        stopMove();
+        moveColor = colors[path[0]];
+        if ( moveColor == Board.EMPTY || path.length < 2 ) {
+            moveColor = Board.EMPTY;
+            return;
+        }
+        movePath = path;
+        moveFrom = path[0];
+        moveStep = 0;
+        moveSteps = Math.min(MAX_MOVE_STEPS, CELL_STEPS * (path.length - 1));
+        updateMovePosition();
+        startAnimator();
+    }
+
+    private void stopMove() {
+        if ( moveColor != Board.EMPTY ) {
+            moveColor = Board.EMPTY;
+            repaint(moveX, moveY, tile + 1, tile + 1);
+            repaintCell(movePath[movePath.length - 1]);
+        }
+    }
+
+    private void startFade(int index, byte color) {
+        if ( fades == MAX_FADES ) {
+            return;
+        }
+        fadeCells[fades] = index;
+        fadeColors[fades] = color;
+        fadeSteps[fades] = 0;
+        fades++;
+        startAnimator();
+    }
+
+    private void stopFade(int index) {
+        for (int i = 0; i < fades; i++) {
+            if ( fadeCells[i] == index ) {
+                removeFade(i);
+                return;
+            }
+        }
+    }
+
+    private void removeFade(int i) {
+        fades--;
+        fadeCells[i] = fadeCells[fades];
+        fadeColors[i] = fadeColors[fades];
+        fadeSteps[i] = fadeSteps[fades];
+    }
+
+    private void startAnimator() {
+        if ( !animator.isRunning() ) {
+            lastFrame = System.nanoTime();
+            lag = 0;
+            animator.start();
+        }
+    }
+
+    /**
+     * Кадр анимации: выполнение шагов за прошедшее время и перерисовка анимируемых шаров.
+     */
+    private void animate() {
+        long now = System.nanoTime();
+        lag = Math.min(lag + now - lastFrame, MAX_STEPS * STEP_NANOS);
+        lastFrame = now;
+        while ( lag >= STEP_NANOS ) {
+            lag -= STEP_NANOS;
+            step();
+        }
+        if ( moveColor == Board.EMPTY && fades == 0 ) {
+            animator.stop();
+        }
+    }
+
+    private void step() {
+        if ( moveColor != Board.EMPTY ) {
+            repaint(moveX, moveY, tile + 1, tile + 1);
+            if ( ++moveStep >= moveSteps ) {
+                stopMove();
+            } else {
+                updateMovePosition();
+                repaint(moveX, moveY, tile + 1, tile + 1);
+            }
+        }
+        for (int i = fades - 1; i >= 0; i--) {
+            repaintCell(fadeCells[i]);
+            if ( ++fadeSteps[i] >= FADE_STEPS ) {
+                removeFade(i);
+            }
+        }
+    }
+
+    /**
+     * Положение перемещаемого шара: линейная интерполяция между ячейками пути.
+     */
+    private void updateMovePosition() {
+        int last = movePath.length - 1;
+        // пройденная часть пути в ячейках, с точностью 1/moveSteps
+        int scaled = moveStep * last;
+        int segment = scaled / moveSteps;
+        int from = movePath[segment];
+        int to = movePath[Math.min(segment + 1, last)];
+        int fraction = scaled - segment * moveSteps;
+        int fromX = from % side * tile;
+        int fromY = (side - 1 - from / side) * tile;
+        int toX = to % side * tile;
+        int toY = (side - 1 - to / side) * tile;
+        moveX = fromX + (toX - fromX) * fraction / moveSteps;
+        moveY = fromY + (toY - fromY) * fraction / moveSteps;
+    }
+
+    /**
+     * Изменение масштаба с сохранением положения точки поля под курсором.
+     *
+     * @param viewport область прокрутки поля.
+     * @param anchor   точка компонента, которая должна остаться под курсором.
+     * @param factor   коэффициент изменения размера ячейки.
+     */
+    private void zoom(JViewport viewport, Point anchor, double factor) {
+        int newTile = clampTile((int) Math.round(tile * factor));
+        if ( newTile == tile ) {
+            return;
+        }
+        double cellX = (double) anchor.x / tile;
+        double cellY = (double) anchor.y / tile;
+        setTile(newTile);
+        if ( moveColor != Board.EMPTY ) {
+            updateMovePosition();
+        }
+        Point view = viewport.getViewPosition();
+        Dimension extent = viewport.getExtentSize();
+        // размер задаётся сразу, чтобы viewport не ограничил новую позицию старыми размерами поля
+        setSize(getPreferredSize());
+        int x = (int) Math.round(cellX * tile) - (anchor.x - view.x);
+        int y = (int) Math.round(cellY * tile) - (anchor.y - view.y);
+        x = Math.max(0, Math.min(x, getWidth() - extent.width));
+        y = Math.max(0, Math.min(y, getHeight() - extent.height));
+        viewport.setViewPosition(new Point(x, y));
+        revalidate();
+        repaint();
+    }
+
+    private void setTile(int tile) {
+        this.tile = tile;
+        // изображения масштабируются только для текущего размера ячейки
+        balls = tile >= IMAGE_TILE ? ResourceManager.getBallImages(ResourceManager.ballSize(tile)) : null;
+        background = null;
+        selectionStroke = new BasicStroke(Math.max(2, tile / 12));
+        if ( ballColors[0] == null ) {
+            BufferedImage[] small = balls != null ? balls : ResourceManager.getBallImages(IMAGE_TILE);
+            for (int i = 0; i < ballColors.length; i++) {
+                ballColors[i] = new Color(small[i].getRGB(small[i].getWidth() / 2, small[i].getHeight() / 2));
+            }
+        }
+    }
+
+    private static int clampTile(int tile) {
+        return Math.max(MIN_TILE, Math.min(MAX_TILE, tile));
+    }
+
+    /**
+     * @return индекс ячейки поля в точке компонента либо -1, если точка вне поля.
+     */
+    private int indexAt(int px, int py) {
+        int column = px / tile;
+        int row = py / tile;
+        if ( px < 0 || py < 0 || column >= side || row >= side ) {
+            return -1;
+        }
+        // верхняя строка изображения - последняя строка поля (y = side)
+        return (side - 1 - row) * side + column;
+    }
+
+    private void repaintCell(int index) {
+        repaint(index % side * tile, (side - 1 - index / side) * tile, tile + 1, tile + 1);
+    }
+
+    @Override
+    protected void paintComponent(Graphics g) {
+        long start = System.nanoTime();
+        // без области отсечения перерисовывается весь компонент
+        Rectangle clip = clipBounds;
+        clip.setBounds(0, 0, getWidth(), getHeight());
+        g.getClipBounds(clip);
+        // ячейки, пересекающие область перерисовки
+        int firstColumn = Math.max(0, clip.x / tile);
+        int lastColumn = Math.min(side - 1, (clip.x + clip.width) / tile);
+        int firstRow = Math.max(0, clip.y / tile);
+        int lastRow = Math.min(side - 1, (clip.y + clip.height) / tile);
+
+        if ( getBackgroundImage() != null ) {
+            g.drawImage(background, 0, 0, null);
+        } else {
+            g.setColor(getBackground());
+            g.fillRect(clip.x, clip.y, clip.width, clip.height);
+            if ( tile >= IMAGE_TILE ) {
+                paintGrid(g, firstColumn, lastColumn, firstRow, lastRow);
+            }
+        }
+
+        // целевая ячейка перемещаемого шара рисуется только после окончания перемещения
+        int hidden = moveColor != Board.EMPTY ? movePath[movePath.length - 1] : -1;
+        for (int row = firstRow; row <= lastRow; row++) {
+            int base = (side - 1 - row) * side;
+            for (int column = firstColumn; column <= lastColumn; column++) {
+                byte color = colors[base + column];
+                if ( color != Board.EMPTY && base + column != hidden ) {
+                    paintBall(g, color, column * tile, row * tile);
+                }
+            }
+        }
+        paintAnimation(g, clip);
+
+        paintFrame(g, clip, selected, SELECTION_COLOR);
+        paintFrame(g, clip, hint, HINT_COLOR);
+        TurnMetrics.record(TurnMetrics.Phase.REPAINT, start);
+    }
+
+    /**
+     * Исчезающие шары (с прозрачностью текущего шага) и перемещаемый шар.
+     */
+    private void paintAnimation(Graphics g, Rectangle clip) {
+        if ( fades > 0 ) {
+            Graphics2D g2 = (Graphics2D) g;
+            Composite composite = g2.getComposite();
+            for (int i = 0; i < fades; i++) {
+                int index = fadeCells[i];
+                int x = index % side * tile;
+                int y = (side - 1 - index / side) * tile;
+                if ( clip.intersects(x, y, tile, tile) ) {
+                    g2.setComposite(FADE_ALPHA[fadeSteps[i]]);
+                    paintBall(g2, fadeColors[i], x, y);
+                }
+            }
+            g2.setComposite(composite);
+        }
+        if ( moveColor != Board.EMPTY && clip.intersects(moveX, moveY, tile, tile) ) {
+            paintBall(g, moveColor, moveX, moveY);
+        }
+    }
+
+    /**
+     * Выделение ячейки рамкой заданного цвета. Линия рамки устанавливается и восстанавливается на самом
+     * контексте рисования, без его копии.
+     */
+    private void paintFrame(Graphics g, Rectangle clip, int index, Color color) {
+        if ( index < 0 ) {
+            return;
+        }
+        int x = index % side * tile;
+        int y = (side - 1 - index / side) * tile;
+        if ( clip.intersects(x, y, tile + 1, tile + 1) ) {
+            Graphics2D g2 = (Graphics2D) g;
+            Stroke stroke = g2.getStroke();
+            int width = (int) selectionStroke.getLineWidth();
+            g2.setColor(color);
+            g2.setStroke(selectionStroke);
+            g2.drawRect(x + width / 2, y + width / 2, tile - width, tile - width);
+            g2.setStroke(stroke);
+        }
+    }
+
+    /**
+     * @return фон поля с линиями сетки либо null, если поле слишком велико для кэширования фона
+     * или ячейки слишком малы для линий сетки.
+     */
+    private BufferedImage getBackgroundImage() {
+        int size = side * tile + 1;
+        if ( background == null && size <= MAX_BACKGROUND && tile >= IMAGE_TILE ) {
+            background = new BufferedImage(size, size, BufferedImage.TYPE_INT_RGB);
+            Graphics g = background.createGraphics();
+            g.setColor(getBackground());
+            g.fillRect(0, 0, size, size);
+            paintGrid(g, 0, side - 1, 0, side - 1);
+            g.dispose();
+        }
+        return background;
+    }
+
+    private void paintGrid(Graphics g, int firstColumn, int lastColumn, int firstRow, int lastRow) {
+        g.setColor(GRID_COLOR);
+        int top = firstRow * tile;
+        int bottom = (lastRow + 1) * tile;
+        int left = firstColumn * tile;
+        int right = (lastColumn + 1) * tile;
+        for (int row = firstRow; row <= lastRow + 1; row++) {
+            g.drawLine(left, row * tile, right, row * tile);
+        }
+        for (int column = firstColumn; column <= lastColumn + 1; column++) {
+            g.drawLine(column * tile, top, column * tile, bottom);
+        }
+    }
+
+    private void paintBall(Graphics g, byte color, int x, int y) {
+        if ( balls == null ) {
+            g.setColor(ballColors[color - 1]);
+            g.fillRect(x, y, tile, tile);
+            return;
+        }
+        BufferedImage ball = balls[color - 1];
+        g.drawImage(ball, x + (tile - ball.getWidth()) / 2, y + (tile - ball.getHeight()) / 2, null);
+    }
+
+    @Override
+    public Dimension getPreferredSize() {
+        return new Dimension(side * tile + 1, side * tile + 1);
+    }
+
+    @Override
+    public Dimension getPreferredScrollableViewportSize() {
+        return getPreferredSize();
+    }
+
+    @Override
+    public int getScrollableUnitIncrement(Rectangle visibleRect, int orientation, int direction) {
+        return tile;
+    }
+
+    @Override
+    public int getScrollableBlockIncrement(Rectangle visibleRect, int orientation, int direction) {
+        int extent = orientation == SwingConstants.VERTICAL ? visibleRect.height : visibleRect.width;
+        return Math.max(tile, extent - tile);
+    }
+
+    @Override
+    public boolean getScrollableTracksViewportWidth() {
+        return false;
+    }
+
+    @Override
+    public boolean getScrollableTracksViewportHeight() {
+        return false;
+    }
+}
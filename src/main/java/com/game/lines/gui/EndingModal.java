@@ -9,8 +9,26 @@ import java.awt.*;
 public class EndingModal extends JDialog {
     private static Color paneColor;
     private static EndingModal modal;
+    // место результата в таблице рекордов (0 - не записан), количество игр и лучший результат
+    private static int rank;
+    private static int games;
+    private static int best;
 
     public static void init() {
+        init(0, 0, 0);
+    }
+
+    /**
+     * Диалог окончания игры с местом результата в таблице рекордов.
+     *
+     * @param rank  место результата среди игр на поле этого размера (0 - не показывается).
+     * @param games количество игр на поле этого размера.
+     * @param best  лучший результат на поле этого размера.
+     */
+    public static void init(int rank, int games, int best) {
+        EndingModal.rank = rank;
+        EndingModal.games = games;
+        EndingModal.best = best;
         new EndingModal();
     }
 
@@ -22,7 +40,7 @@ public class EndingModal extends JDialog {
         getContentPane().setBackground(paneColor);
         addComponentsToPane(getContentPane());
         pack();
-        setSize(350, 280);
+        setSize(350, rank > 0 ? 330 : 280);
         setLocationRelativeTo(GameInitializer.getFrames()[0]);
         setResizable(false);
         setVisible(true);
@@ -50,8 +68,13 @@ public class EndingModal extends JDialog {
                 "<html>" +
                 "<h1 align=\"center\" color=\"purple\">" + "Поздравляем!</h1>" +
                 "<h2 align=\"center\" color=\"#A0522D\">" + "Вы набрали " + Play.getPointsCounter() + " очков.</h2>" +
+                (rank > 0
+                        ? "<font face=\"verdana\" size=4 color=\"purple\">" +
+                          "<b>Место в таблице рекордов: " + rank + " из " + games + ".</b> <br>" +
+                          "<b>Лучший результат: " + best + " очков.</b></font> <br>"
+                        : "") +
                 "<font face=\"verdana\" size=4 color=\"navy\">" +
-                "<b>На поле не осталось свободных <br> ячеек.</b> <br>" +
+                "<b>На поле не осталось <br> возможных ходов.</b> <br>" +
                 "<b>Выберите дальнейшее действие:</b>" +
                 "</html>";
         JLabel label = new JLabel(labelText);
@@ -19,8 +19,8 @@ public class GameInitializer extends JFrame {
         super("Lines");                               // Устанавливаем заголовок окна - название игры.
         setIconImage( ResourceManager.getImageIcon() );    // Устанавливаем изображение/иконку окна игры.
         windowClosingSetUp();                              // Настраиваем закрытие окна игры.
-        JPanel gridPanel = new JPanel();                   // Инициализация сетки (игрового поля).
-        Grid.getInstance().createGrid(gridWidth, gridHeight, gridPanel);
+        // Инициализация сетки (игрового поля).
+        JComponent gridPanel = Grid.getInstance().createGrid(frameWidth, frameHeight, gridWidth);
         GuiManager.getInstance().createGui(this, frameWidth, frameHeight, gridPanel);
     }
 
@@ -1,62 +1,50 @@
 package com.game.lines.gui;
 
-import com.game.lines.model.Cell;
-import com.game.lines.logic.State;
+import com.game.lines.logic.Play;
+import com.game.lines.model.Board;
+import com.game.lines.util.ResourceManager;
 
 import javax.swing.*;
-import javax.swing.border.Border;
 import java.awt.*;
 
-import static com.game.lines.model.Cell.*;
-
+/**
+ * Класс Grid создаёт игровое поле и его представление {@link BoardView}.
+ */
 public class Grid {
+    // наибольшая длина стороны поля, которое целиком помещается в окне (поля большего размера прокручиваются)
+    private static final int MAX_FIXED_SIDE = 12;
+    // представление игрового поля
+    private static BoardView view;
 
-    private static JLabel[][] grid;
-
-    public static int getGridLength() {
-        return grid.length;
+    public static BoardView getView() {
+        return view;
     }
 
     static Grid getInstance() {
         return new Grid();
     }
+
     /**
      * Создание сетки.
-     * @param gridWidth ширина сетки.
-     * @param gridHeight высота сетки.
+     * Поле размером до {@value #MAX_FIXED_SIDE} ячеек занимает окно целиком, поле большего размера
+     * отображается с прокруткой и масштабированием.
+     *
+     * @param frameWidth ширина окна.
+     * @param frameHeight высота окна.
+     * @param side длина стороны поля.
+     * @return компонент, отображающий поле.
      */
-    void createGrid(int gridWidth, int gridHeight, JPanel gridPanel) {
-        gridPanel.setLayout(new GridLayout(gridWidth, gridHeight) ); // установка сетки на панель
-        grid = new Cell[gridWidth][gridHeight]; // инициализация сетки
-        Border lineBorder = BorderFactory.createLineBorder(Color.BLACK, 1); // установка границ ячеек сетки
-        // создание и инициализация ячеек сетки
-        for (int y = gridHeight; y >= 1; y--) {
-            for (int x = 1; x <= gridWidth; x++) {
-                Cell createdCell = new Cell(x, y); // Создание новой ячейки на сетке.
-                initializeCell( createdCell, gridPanel, lineBorder ); // Вызов метода инициализации ячейки.
-            }
+    JComponent createGrid(int frameWidth, int frameHeight, int side) {
+        Board board = new Board(side); // инициализация игрового поля
+        Play.setBoard(board);
+        if ( side > MAX_FIXED_SIDE ) {
+            view = new BoardView(board, BoardView.DEFAULT_TILE);
+            return new JScrollPane(view);
         }
+        view = new BoardView(board, ResourceManager.tileSize(frameWidth, frameHeight, side));
+        // поле выравнивается по центру свободного места окна
+        JPanel gridPanel = new JPanel(new GridBagLayout());
+        gridPanel.add(view);
+        return gridPanel;
     }
-
-    /**
-     * Метод, в котором происходит инициализация созданной ячейки.
-     * @param newCell новая ячейка.
-     * @param gridPanel панель-сетка, где будет располагаться ячейка.
-     * @param lineBorder границы ячейки.
-     */
-   private void initializeCell(Cell newCell, JPanel gridPanel, Border lineBorder) {
-        int x = newCell.getXx();
-        int y = newCell.getYy();
-//        newCell.setText("(" + (x) + "," + (y) + ")");
-        getCellMap().put(newCell.getCoordinates(), newCell); // добавление ячейки в карту ячеек
-        newCell.setBorder(lineBorder); // установка границ ячейки
-        newCell.setVerticalAlignment(SwingConstants.CENTER); // установка вертикальной центровки
-        newCell.setHorizontalAlignment(SwingConstants.CENTER); // установка горизонтальной центровки
-        newCell.setBackground(Color.WHITE); // установка цвета фона ячейки
-        newCell.setOpaque(true); // установка свойства "непрозрачности" ячейки
-        gridPanel.add(newCell); // добавление ячейки на сетку
-        newCell.setState(State.EMPTY); // установка состояния ячейки
-        grid[--x][--y] = newCell; // инициализация ячейки
-        getEmptyCells().add(newCell); // добавление ячейки в список пустых ячеек
-    }
-}
\ No newline at end of file
+}
@@ -50,9 +50,9 @@ public class GuiManager {
      * @param panel панель игры.
      * @param width ширина фрейма.
      * @param height высота фрейма.
-     * @param grid панель, содержащая сетку из ячеек.
+     * @param grid панель, содержащая сетку из ячеек, либо прокручиваемое представление большого поля.
      */
-    void createGui(GameInitializer panel, int width, int height, JPanel grid) {
+    void createGui(GameInitializer panel, int width, int height, JComponent grid) {
         infoLabel = new JLabel("Начата новая игра."); // Виджет состояния игры.
         pointsLabel = new JLabel(DEFAULT_POINTS_VALUE);          // Виджет очков во время игры.
         ballsLabel = new JLabel(DEFAULT_BALLS_VALUE);          // Виджет количества удаленных шаров.
@@ -84,6 +84,21 @@ public class GuiManager {
         northPanel.add(testButton, BorderLayout.CENTER);
         // =====================TEST=======
 
+        // Кнопки игры располагаются отдельной строкой под очками, чтобы помещаться в окно наименьшего поля
+        // (высота строки учтена в размерах окон, см. Application.GRID_SIZES).
+        JPanel buttonsPanel = new JPanel();
+        buttonsPanel.setBackground(Color.YELLOW);
+        JButton hintButton = new JButton("Подсказка"); // Подсказка лучшего хода.
+        hintButton.addActionListener( e -> GameHelper.showHint());
+        buttonsPanel.add(hintButton);
+        JButton undoButton = new JButton("Отменить"); // Отмена последнего хода.
+        undoButton.addActionListener( e -> GameHelper.undo());
+        buttonsPanel.add(undoButton);
+        JButton redoButton = new JButton("Повторить"); // Повтор отменённого хода.
+        redoButton.addActionListener( e -> GameHelper.redo());
+        buttonsPanel.add(redoButton);
+        northPanel.add(buttonsPanel, BorderLayout.SOUTH);
+
         panel.pack(); // Установка соответствующего размера окна программы.
         panel.setLocation(500, 100); // Установка положения окна на экране пользователя.
         panel.setSize(width, height); // Установка размера.
@@ -92,7 +107,7 @@ public class GuiManager {
         panel.getContentPane().add(BorderLayout.SOUTH, southPanel);
         panel.getContentPane().add(BorderLayout.CENTER, grid);
         panel.getContentPane().add(BorderLayout.NORTH, northPanel);
-        panel.setResizable(false);
+        panel.setResizable(grid instanceof JScrollPane);
         panel.setVisible(true);
 
         // TODO: написать отдельный класс, в котором будет инициализация игры.
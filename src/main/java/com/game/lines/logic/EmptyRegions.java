@@ -0,0 +1,114 @@
+package com.game.lines.logic;
+
+import com.game.lines.model.Board;
+
+/**
+ * Класс EmptyRegions хранит разбиение пустых ячеек поля на связные области (система непересекающихся множеств).
+ * Ход возможен тогда и только тогда, когда целевая ячейка находится в одной области с какой-либо пустой
+ * ячейкой, соседней с ячейкой шара, поэтому проверка хода сводится к нескольким поискам корня множества.
+ * Разбиение перестраивается лениво: при первом обращении после изменения поля (см. {@link Board#getVersion()}).
+ */
+class EmptyRegions {
+    private final Board board;
+    // родитель ячейки в системе множеств; -1 для ячеек с шарами
+    private final int[] parent;
+    // буфер для соседей ячейки
+    private final int[] neighbors = new int[4];
+    // версия поля, для которой построено разбиение
+    private int version = -1;
+    // true, если хотя бы один шар граничит с пустой ячейкой
+    private boolean moveExists;
+
+    EmptyRegions(Board board) {
+        this.board = board;
+        this.parent = new int[board.size()];
+    }
+
+    /**
+     * @param from индекс ячейки с шаром.
+     * @param to   индекс пустой ячейки.
+     * @return true, если шар можно переместить из from в to.
+     */
+    boolean connected(int from, int to) {
+        update();
+        if ( from == to || board.isEmpty(from) || !board.isEmpty(to) ) {
+            return false;
+        }
+        int root = find(to);
+        int count = board.neighbors(from, neighbors);
+        for (int i = 0; i < count; i++) {
+            if ( board.isEmpty(neighbors[i]) && find(neighbors[i]) == root ) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * @param index индекс ячейки.
+     * @return идентификатор области пустой ячейки (одинаковый для всех ячеек области) либо -1 для ячейки с шаром.
+     */
+    int region(int index) {
+        update();
+        return parent[index] < 0 ? -1 : find(index);
+    }
+
+    /**
+     * @return true, если на поле остался хотя бы один возможный ход.
+     */
+    boolean hasMove() {
+        update();
+        return moveExists;
+    }
+
+    private void update() {
+        if ( version != board.getVersion() ) {
+            rebuild();
+            version = board.getVersion();
+        }
+    }
+
+    private void rebuild() {
+        int side = board.getSide();
+        for (int i = 0; i < parent.length; i++) {
+            parent[i] = board.isEmpty(i) ? i : -1;
+        }
+        moveExists = false;
+        for (int i = 0; i < parent.length; i++) {
+            int x = board.x(i);
+            int y = board.y(i);
+            if ( x < side ) {
+                join(i, i + 1);
+            }
+            if ( y < side ) {
+                join(i, i + side);
+            }
+        }
+    }
+
+    /**
+     * Объединение соседних ячеек: две пустые ячейки попадают в одну область, а пустая ячейка рядом
+     * с шаром означает, что ход существует.
+     */
+    private void join(int a, int b) {
+        boolean emptyA = parent[a] >= 0;
+        boolean emptyB = parent[b] >= 0;
+        if ( emptyA && emptyB ) {
+            int rootA = find(a);
+            int rootB = find(b);
+            if ( rootA != rootB ) {
+                parent[rootA] = rootB;
+            }
+        } else if ( emptyA != emptyB ) {
+            moveExists = true;
+        }
+    }
+
+    private int find(int node) {
+        while ( parent[node] != node ) {
+            parent[node] = parent[parent[node]];
+            node = parent[node];
+        }
+        return node;
+    }
+}
@@ -0,0 +1,385 @@
+package com.game.lines.logic;
+
+import com.game.lines.model.Board;
+
+import java.util.SplittableRandom;
+
+/**
+ * Класс Game реализует правила игры Lines без привязки к интерфейсу: перемещение шара, удаление линий,
+ * начисление очков, генерацию новых шаров и проверку окончания игры.
+ * Графическая игра ({@link Play}) вызывает методы по фазам хода, а моделирование выполняет ход целиком
+ * методом {@link #turn(int, int)}.
+ * Если игре задан журнал ({@link #setJournal(TurnJournal)}), изменения ячеек и счётчиков между
+ * {@link #beginTurn()} и {@link #endTurn()} записываются в него, и ход можно отменить ({@link #undo()})
+ * и повторить ({@link #redo()}).
+ * <p>
+ * Все случайные события игры (ячейки и цвета новых шаров) берутся из генератора игры. Игра, начатая методом
+ * {@link #reset(long)}, полностью определяется начальным значением генератора и действиями игрока; если игре
+ * задана запись ({@link #setReplay(Replay)}), действия записываются в неё для воспроизведения.
+ */
+public class Game {
+    /**
+     * Количество шаров, появляющихся в начале игры.
+     */
+    public static final int START_BALLS = 5;
+    /**
+     * Количество шаров, появляющихся после хода, при котором не была удалена ни одна линия.
+     */
+    public static final int SPAWN_BALLS = 3;
+
+    private final Board board;
+    private final LineDetector lineDetector;
+    private final PathFinder pathFinder;
+    private final EmptyRegions emptyRegions;
+    private SplittableRandom random;
+    // начальное значение генератора, заданное при сбросе игры
+    private long seed;
+    // буфер для ячейки, в которую был перемещён шар
+    private final int[] target = new int[1];
+    private int points; // счетчик очков в игре
+    private int balls;  // счетчик удаленных шаров
+    private int moves;  // счетчик выполненных ходов
+    private TurnJournal journal; // журнал ходов для отмены и повтора (может отсутствовать)
+    private Replay replay;       // запись действий игрока (может отсутствовать)
+
+    public Game(int side, SplittableRandom random) {
+        this(new Board(side), random);
+    }
+
+    public Game(Board board, SplittableRandom random) {
+        this.board = board;
+        this.random = random;
+        this.lineDetector = new LineDetector(board);
+        this.pathFinder = new PathFinder(board);
+        this.emptyRegions = new EmptyRegions(board);
+    }
+
+    /**
+     * Копия игры (поле и счётчики) с собственным генератором случайных чисел, например для поиска ходов.
+     */
+    public Game(Game other, SplittableRandom random) {
+        this(new Board(other.board), random);
+        points = other.points;
+        balls = other.balls;
+        moves = other.moves;
+    }
+
+    /**
+     * Копирование поля и счётчиков другой игры с полем того же размера.
+     */
+    public void copyFrom(Game other) {
+        board.copyFrom(other.board);
+        points = other.points;
+        balls = other.balls;
+        moves = other.moves;
+    }
+
+    /**
+     * Восстановление счётчиков сохранённой игры (см. {@link SaveFile}).
+     */
+    void restore(int points, int balls, int moves) {
+        this.points = points;
+        this.balls = balls;
+        this.moves = moves;
+    }
+
+    public Board getBoard() {
+        return board;
+    }
+
+    public int getPoints() {
+        return points;
+    }
+
+    public int getBalls() {
+        return balls;
+    }
+
+    public int getMoves() {
+        return moves;
+    }
+
+    public TurnJournal getJournal() {
+        return journal;
+    }
+
+    public void setJournal(TurnJournal journal) {
+        this.journal = journal;
+    }
+
+    public Replay getReplay() {
+        return replay;
+    }
+
+    public void setReplay(Replay replay) {
+        this.replay = replay;
+    }
+
+    /**
+     * @return начальное значение генератора, заданное последним вызовом {@link #reset(long)}.
+     */
+    public long getSeed() {
+        return seed;
+    }
+
+    /**
+     * Количество очков за удалённую линию, исходя из количества шаров в ней.
+     * Чем больше шаров, тем выше коэффициент начисления очков.
+     *
+     * @param lineSize количество шаров.
+     */
+    public static int score(int lineSize) {
+        double ratio = 2.1 + (double) (lineSize - 5) / 10;
+        return (int) (lineSize * ratio);
+    }
+
+    /**
+     * Сброс поля и счётчиков. Генератор продолжает прежнюю последовательность, поэтому запись игры
+     * прекращается.
+     */
+    public void reset() {
+        if ( replay != null ) {
+            replay.invalidate();
+        }
+        clear();
+    }
+
+    /**
+     * Сброс поля и счётчиков с новым начальным значением генератора; запись игры начинается заново.
+     */
+    public void reset(long seed) {
+        this.seed = seed;
+        random = new SplittableRandom(seed);
+        if ( replay != null ) {
+            replay.begin(board.getSide(), seed);
+        }
+        clear();
+    }
+
+    private void clear() {
+        if ( journal != null ) {
+            journal.clear();
+        }
+        board.clear();
+        points = 0;
+        balls = 0;
+        moves = 0;
+    }
+
+    /**
+     * Начало новой игры: сброс и генерация {@link #START_BALLS} шаров.
+     */
+    public void start() {
+        reset();
+        spawn(START_BALLS);
+    }
+
+    /**
+     * Начало новой игры с заданным начальным значением генератора.
+     */
+    public void start(long seed) {
+        reset(seed);
+        spawn(START_BALLS);
+    }
+
+    /**
+     * @return true, если шар можно переместить из ячейки from в ячейку to.
+     */
+    public boolean canMove(int from, int to) {
+        return emptyRegions.connected(from, to);
+    }
+
+    /**
+     * @return true, если на поле остался хотя бы один возможный ход.
+     */
+    public boolean hasMove() {
+        return emptyRegions.hasMove();
+    }
+
+    /**
+     * @return идентификатор связной области пустой ячейки либо -1 для ячейки с шаром;
+     * шар можно переместить в любую ячейку области, соседней с ним.
+     */
+    public int region(int index) {
+        return emptyRegions.region(index);
+    }
+
+    /**
+     * Поиск кратчайшего пути шара; сам путь доступен через {@link #getPath()}.
+     *
+     * @return true, если путь существует.
+     */
+    public boolean findPath(int from, int to) {
+        return pathFinder.search(from, to);
+    }
+
+    /**
+     * @return ячейки пути, найденного {@link #findPath(int, int)}; действительны первые {@link #getPathLength()}.
+     */
+    public int[] getPath() {
+        return pathFinder.getPath();
+    }
+
+    public int getPathLength() {
+        return pathFinder.getPathLength();
+    }
+
+    /**
+     * Перемещение шара без проверки возможности хода.
+     */
+    public void move(int from, int to) {
+        set(to, board.getColor(from));
+        set(from, Board.EMPTY);
+        moves++;
+        if ( replay != null ) {
+            replay.move(from, to);
+        }
+    }
+
+    /**
+     * Начало записи хода в журнал (если он задан).
+     */
+    public void beginTurn() {
+        if ( journal != null ) {
+            journal.begin(points, balls, moves);
+        }
+    }
+
+    /**
+     * Завершение записи хода в журнал (если он задан).
+     */
+    public void endTurn() {
+        if ( journal != null ) {
+            journal.commit(points, balls, moves);
+        }
+    }
+
+    /**
+     * Отмена последнего записанного хода: ячейки и счётчики возвращаются в состояние до хода.
+     *
+     * @return false, если отменять нечего.
+     */
+    public boolean undo() {
+        if ( journal == null || !apply(journal.undo(board::setColor), -1) ) {
+            return false;
+        }
+        if ( replay != null ) {
+            replay.undo();
+        }
+        return true;
+    }
+
+    /**
+     * Повтор отменённого хода.
+     *
+     * @return false, если повторять нечего.
+     */
+    public boolean redo() {
+        if ( journal == null || !apply(journal.redo(board::setColor), 1) ) {
+            return false;
+        }
+        if ( replay != null ) {
+            replay.redo();
+        }
+        return true;
+    }
+
+    private boolean apply(int[] delta, int sign) {
+        if ( delta == null ) {
+            return false;
+        }
+        points += sign * delta[0];
+        balls += sign * delta[1];
+        moves += sign * delta[2];
+        return true;
+    }
+
+    /**
+     * Изменение ячейки поля с записью в журнал.
+     */
+    private void set(int index, byte color) {
+        byte old = board.getColor(index);
+        if ( old != color ) {
+            if ( journal != null ) {
+                journal.record(index, old, color);
+            }
+            board.setColor(index, color);
+        }
+    }
+
+    /**
+     * Удаление линий, проходящих через заданные ячейки, и начисление очков за каждую из них.
+     * Длины удалённых линий доступны через {@link #getLineLength(int)}.
+     *
+     * @param cells индексы изменившихся ячеек.
+     * @param count количество ячеек.
+     * @return количество удалённых линий.
+     */
+    public int clearLines(int[] cells, int count) {
+        int lines = lineDetector.search(cells, count);
+        for (int line = 0; line < lines; line++) {
+            int length = lineDetector.getLineLength(line);
+            points += score(length);
+            balls += length;
+        }
+        int[] cleared = lineDetector.getCleared();
+        for (int i = 0; i < lineDetector.getClearedCount(); i++) {
+            set(cleared[i], Board.EMPTY);
+        }
+        return lines;
+    }
+
+    /**
+     * @param line номер линии, удалённой последним вызовом {@link #clearLines(int[], int)}.
+     * @return количество шаров в линии.
+     */
+    public int getLineLength(int line) {
+        return lineDetector.getLineLength(line);
+    }
+
+    /**
+     * Длина самой длинной линии цвета color, которая прошла бы через ячейку index, если бы в ней был
+     * шар этого цвета, а ячейка ignored была бы пустой (оценка хода без изменения поля).
+     */
+    public int longestLine(int index, byte color, int ignored) {
+        return lineDetector.longestLine(index, color, ignored);
+    }
+
+    /**
+     * Генерация шаров случайного цвета в случайных пустых ячейках.
+     *
+     * @param amount количество шаров.
+     * @return индексы заполненных ячеек.
+     */
+    public int[] spawn(int amount) {
+        int[] spawned = new int[Math.min(amount, board.getEmptyCount())];
+        for (int i = 0; i < spawned.length; i++) {
+            int cell = board.getEmptyCell(random.nextInt(board.getEmptyCount())); // случайная пустая ячейка
+            set(cell, (byte) (1 + random.nextInt(Board.COLORS)));              // шар случайного цвета
+            spawned[i] = cell;
+        }
+        assert board.checkEmptyCells();
+        return spawned;
+    }
+
+    /**
+     * Полный игровой ход: перемещение, удаление линий и, если линия не удалена, генерация новых шаров
+     * с удалением линий, сформированных ими.
+     *
+     * @return false, если ход невозможен.
+     */
+    public boolean turn(int from, int to) {
+        if ( !canMove(from, to) ) {
+            return false;
+        }
+        beginTurn();
+        move(from, to);
+        target[0] = to;
+        if ( clearLines(target, 1) == 0 ) {
+            int[] spawned = spawn(SPAWN_BALLS);
+            clearLines(spawned, spawned.length);
+        }
+        endTurn();
+        return true;
+    }
+}
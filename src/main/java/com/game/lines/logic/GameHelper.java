@@ -1,57 +1,116 @@
 package com.game.lines.logic;
 
 import com.game.lines.gui.GuiManager;
-import com.game.lines.model.Cell;
 import com.game.lines.gui.EndingModal;
+import com.game.lines.gui.Grid;
+import com.game.lines.util.AsyncLog;
 
-import javax.swing.*;
-
-import java.util.List;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.SplittableRandom;
+import java.util.concurrent.ForkJoinPool;
+import java.util.logging.Level;
 import java.util.logging.Logger;
 
-import static com.game.lines.util.ResourceManager.BALLS;
-import static com.game.lines.model.AbstractCell.getCellMap;
-import static com.game.lines.model.AbstractCell.getEmptyCells;
-import static com.game.lines.logic.State.EMPTY;
-import static com.game.lines.logic.State.RELEASED;
 import static com.game.lines.logic.Play.*;
 
 public class GameHelper {
+    // оценка ходов для подсказки; лучший ход хранится до изменения поля
+    private static final MoveEvaluator hints = new MoveEvaluator(ForkJoinPool.commonPool());
+    private static final Logger helperLogger = Logger.getLogger(GameHelper.class.getName());
+    // начальные значения генераторов новых игр
+    private static final SplittableRandom seeds = new SplittableRandom();
+    // автосохранение игры (создаётся при первом запуске игры, когда известен размер поля)
+    private static SaveFile saveFile;
+    // таблица рекордов (читается при первом запуске игры в потоке движка)
+    private static HighScores highScores;
+
     /**
      * Старт новой игры при нажатии на кнопку "Новая игра" в модальном диалоге, за который отвечает класс
      * {@link EndingModal}.
      * Происходит сброс всех игровых параметров и коллекций. Инициируются новый игровой процесс.
      */
     public static void startNewGame() {
-        setBallsCounter(0);
-        setPointsCounter(0);
-        getEmptyCells().clear();
         GuiManager.setDefaultLabelsInfo();
-
-        getCellMap().values().forEach( cell -> {
-            cell.release();
-            cell.setState(EMPTY);
-            cell.setIcon(null);
-            getEmptyCells().add(cell);
-        });
-        initGameProcess();
+        newGame(GameLoop.restart());
     }
 
     /**
-     * Инициализация игрового поцесса в начале игры.
-     * В отдельном потоке, с задержкой в 1 секунду, в случайные ячейки генерируется 5 изображений случайного цвета.
+     * Инициализация игрового поцесса при запуске программы.
+     * Если для поля этого размера есть автосохранение незавершённой игры, она продолжается;
+     * иначе начинается новая игра.
      */
     public static void initGameProcess() {
-        new Thread( () -> {
-            try {
-                Thread.sleep(1000);
-            } catch (InterruptedException e) {
-                e.printStackTrace();
+        int generation = GameLoop.restart();
+        boolean accepted = GameLoop.execute(generation, () -> {
+            if ( saveFile == null ) {
+                saveFile = new SaveFile(SaveFile.defaultPath(getGame().getBoard().getSide()));
+                highScores = new HighScores(HighScores.defaultPath());
+                // один обработчик завершения для файлов игры: записи дописываются и файлы закрываются
+                Runtime.getRuntime().addShutdownHook(new Thread(GameHelper::closeFiles, "lines-files-close"));
             }
+            if ( saveFile.load(getGame()) && getGame().hasMove() ) {
+                saveFile.snapshot(getGame());
+                showCounters(getGame().getPoints(), getGame().getBalls());
+                GameLoop.ui(() -> GuiManager.getInfoLabel().setText("Игра восстановлена."));
+                GameLoop.end(generation);
+            } else {
+                newGame(generation);
+            }
+        });
+        if ( !accepted ) {
+            engineBusy();
+        }
+    }
+
+    private static void closeFiles() {
+        saveFile.close();
+        highScores.close();
+    }
+
+    /**
+     * Новая игра: в потоке движка {@link GameLoop} поле и счётчики сбрасываются, а затем, с задержкой в 1 секунду,
+     * в случайные ячейки генерируется 5 изображений случайного цвета. Фазы ходов предыдущей игры отбрасываются.
+     * Игра получает новое начальное значение генератора, и её запись ({@link Replay}) начинается заново.
+     */
+    private static void newGame(int generation) {
+        if ( !GameLoop.execute(generation, () -> getGame().reset(seeds.nextLong())) ) {
+            engineBusy();
+            return;
+        }
+        boolean accepted = GameLoop.schedule(generation, () -> {
             // вставка рандомных изображений в сетку
-            GuiManager.getInfoLabel().setText("Начата новая игра.");
-            generateRandomImages(GuiManager.getInfoLabel().getText(), false, 5);
-        }).start();
+            generateRandomImages("Начата новая игра.", false, Game.START_BALLS);
+            autosave(true);
+            GameLoop.end(generation);
+        }, 1000);
+        if ( !accepted ) {
+            engineBusy();
+        }
+    }
+
+    /**
+     * Сообщение о том, что фаза отклонена переполненной очередью движка (движок уже освобождён,
+     * см. {@link GameLoop#schedule(int, Runnable, long)}). Вызывается в EDT или в потоке движка.
+     */
+    static void engineBusy() {
+        GameLoop.ui(() -> GuiManager.getInfoLabel().setText("Игра перегружена, повторите действие."));
+    }
+
+    /**
+     * Автосохранение игры после хода. Вызывается в потоке движка.
+     *
+     * @param snapshot true, если файл нужно заменить снимком игры (новая игра).
+     */
+    static void autosave(boolean snapshot) {
+        if ( saveFile == null ) {
+            return;
+        }
+        if ( snapshot ) {
+            saveFile.snapshot(getGame());
+        } else {
+            saveFile.append(getGame());
+        }
     }
 
     /**
@@ -60,54 +119,132 @@ public class GameHelper {
      * @param textInfo       сообщение, переданное в метод, для отображения на экране состояния хода игры
      * @param lineWasDeleted флаг события удаления линии
      * @param amount         количество ячеек для рандомного заполнения изображениями (зависит от настроек игры)
+     * @return индексы заполненных ячеек (пустой массив, если изображения не вставлялись).
      */
-    static void generateRandomImages(String textInfo, boolean lineWasDeleted, int amount) {
-        if ( !lineWasDeleted ) {
-            GuiManager.getInfoLabel().setText( textInfo );
-            for (int i = 0; i < amount; i++) {
-                Cell cell = getRandomCell( getEmptyCells() ); // Получаем рандомную ячейку из массива пустых ячеек.
-                int index = (int) (Math.random() * BALLS.length); // Подбираем случайный индекс.
-                cell.setIcon((ImageIcon) BALLS[index]); // Устанавливаем случайное изображение в ячейку.
-                cell.setState(RELEASED); // Устанавливаем состояние "ячейка освобождена".
-                getEmptyCells().remove(cell); // Удаляем ячейку из списка пустых ячеек.
-            }
+    static int[] generateRandomImages(String textInfo, boolean lineWasDeleted, int amount) {
+        if ( lineWasDeleted ) {
+            return new int[0];
         }
+        GameLoop.ui(() -> GuiManager.getInfoLabel().setText( textInfo ));
+        long start = System.nanoTime();
+        int[] spawned = getGame().spawn(amount);
+        TurnMetrics.record(TurnMetrics.Phase.SPAWN, start);
+        return spawned;
     }
 
     /**
-     * Получение случайной пустой ячейки.
+     * Отображение счётчиков очков и удалённых шаров.
      *
-     * @param freeCells список пустых ячеек.
-     * @return случайная пустая ячейка.
+     * @param points количество очков.
+     * @param balls  количество удалённых шаров.
      */
-    private static Cell getRandomCell(List<Cell> freeCells) {
-        int index = (int) (Math.random() * freeCells.size() );
-        return freeCells.get(index);
+    static void showCounters(int points, int balls) {
+        GameLoop.ui(() -> {
+            GuiManager.getPointsLabel().setText("Очки: " + String.valueOf(points));
+            GuiManager.getBallsLabel().setText(String.valueOf(balls) + ": Шары");
+        });
     }
 
     /**
-     * Начисление очков за удаленную линию, исходя из количества шаров в ней.
-     * Чем больше шаров, тем выше коэффициент начисления очков.
-     * @param lineSize количество шаров.
+     * Подсказка лучшего хода при нажатии на кнопку "Подсказка". Вызывается в EDT.
+     * Ход оценивается в потоке движка {@link GameLoop} (см. {@link MoveEvaluator}), после чего шар выделяется,
+     * а целевая ячейка отмечается на поле.
      */
-    static void accuralPoints(int lineSize) {
-        double ratio = 2.1 + (double) (lineSize - 5) / 10;
-        int pointsValue = getPointsCounter() + (int) (lineSize * ratio);
-        int ballsValue =  getBallsCounter() + lineSize;
-        setPointsCounter(pointsValue);
-        setBallsCounter(ballsValue);
-        GuiManager.getPointsLabel().setText("Очки: " + String.valueOf(getPointsCounter()));
-        GuiManager.getBallsLabel().setText(String.valueOf(getBallsCounter()) + ": Шары");
+    public static void showHint() {
+        int generation = GameLoop.tryBegin();
+        if ( generation < 0 ) {
+            GuiManager.getInfoLabel().setText("Дождитесь завершения хода...");
+            return;
+        }
+        boolean accepted = GameLoop.execute(generation, () -> {
+            long start = System.nanoTime();
+            long move = hints.best(getGame());
+            AsyncLog.fine(helperLogger, "Hint evaluated in {0} us", (System.nanoTime() - start) / 1000);
+            GameLoop.ui(() -> {
+                if ( move == Moves.NO_MOVE ) {
+                    GuiManager.getInfoLabel().setText("Возможных ходов нет.");
+                } else {
+                    Grid.getView().showHint(Moves.from(move), Moves.to(move));
+                    GuiManager.getInfoLabel().setText("Подсказка: переместите выбранный шар в отмеченную ячейку.");
+                }
+            });
+            GameLoop.end(generation);
+        });
+        if ( !accepted ) {
+            engineBusy();
+        }
     }
 
     /**
-     *  Проверка условия, при выполнении которого игра должна завершиться.
+     * Отмена последнего хода при нажатии на кнопку "Отменить". Вызывается в EDT.
+     * Поле и счётчики возвращаются в состояние до хода в потоке движка {@link GameLoop}.
+     */
+    public static void undo() {
+        replay(true);
+    }
+
+    /**
+     * Повтор отменённого хода при нажатии на кнопку "Повторить". Вызывается в EDT.
+     */
+    public static void redo() {
+        replay(false);
+    }
+
+    private static void replay(boolean undo) {
+        int generation = GameLoop.tryBegin();
+        if ( generation < 0 ) {
+            GuiManager.getInfoLabel().setText("Дождитесь завершения хода...");
+            return;
+        }
+        boolean accepted = GameLoop.execute(generation, () -> {
+            boolean done = undo ? getGame().undo() : getGame().redo();
+            if ( done ) {
+                autosave(false);
+            }
+            showCounters(getGame().getPoints(), getGame().getBalls());
+            String text = undo
+                    ? (done ? "Ход отменён." : "Нечего отменять.")
+                    : (done ? "Ход повторён." : "Нечего повторять.");
+            GameLoop.ui(() -> GuiManager.getInfoLabel().setText(text));
+            GameLoop.end(generation);
+        });
+        if ( !accepted ) {
+            engineBusy();
+        }
+    }
+
+    /**
+     *  Проверка условия, при выполнении которого игра должна завершиться: на поле не осталось ни одного хода.
      */
     static void checkGameEndingCondition() {
-        if ( getEmptyCells().size() <= 3 ) {
-            Logger.getGlobal().warning("End of the game!");
-            EndingModal.init();
-            GuiManager.getInfoLabel().setText("Игра окончена!");
+        if ( !getGame().hasMove() ) {
+            AsyncLog.warning(Logger.getGlobal(), "End of the game!");
+            saveReplay();
+            int side = getGame().getBoard().getSide();
+            int rank = highScores.add(side, getGame().getPoints(), getGame().getMoves());
+            int games = highScores.count(side);
+            int best = highScores.top(side).get(0).getPoints();
+            GameLoop.ui(() -> {
+                GuiManager.getInfoLabel().setText("Игра окончена!");
+                EndingModal.init(rank, games, best);
+            });
+        }
+    }
+
+    /**
+     * Сохранение записи законченной игры в каталог replays (для воспроизведения: {@code --replay файл}).
+     */
+    private static void saveReplay() {
+        Replay replay = getGame().getReplay();
+        if ( replay == null || !replay.isValid() ) {
+            return;
+        }
+        Path path = SaveFile.directory().resolve("replays")
+                .resolve(replay.getSide() + "-" + Long.toHexString(replay.getSeed()) + ".lnr");
+        try {
+            replay.write(path);
+        } catch (IOException e) {
+            helperLogger.log(Level.WARNING, "Cannot write replay " + path, e);
         }
     }
-}
\ No newline at end of file
+}
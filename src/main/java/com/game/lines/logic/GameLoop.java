@@ -0,0 +1,169 @@
+package com.game.lines.logic;
+
+import com.game.lines.util.AsyncLog;
+
+import javax.swing.*;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Игровой цикл: единственный поток движка, в котором изменяется игровое поле и счётчики игры.
+ * <p>
+ * Ход выполняется цепочкой фаз (перемещение, удаление линий, генерация шаров, повторная проверка),
+ * запланированных с задержками методом {@link #schedule(int, Runnable, long)}. Каждая цепочка принадлежит
+ * "поколению" игры: при старте новой игры поколение меняется, и фазы предыдущих ходов отбрасываются.
+ * <p>
+ * Изменения интерфейса, сделанные фазой через {@link #ui(Runnable)}, накапливаются и после завершения фазы
+ * передаются в поток обработки событий (EDT) одним пакетом. Движок считается занятым с момента принятия хода
+ * ({@link #tryBegin()}) до применения в EDT последнего пакета хода ({@link #end(int)}); клики, сделанные
+ * в это время, отклоняются.
+ */
+public final class GameLoop {
+    // максимальное количество задач, ожидающих выполнения в потоке движка
+    private static final int QUEUE_CAPACITY = 16;
+    // признак того, что движок свободен
+    private static final int IDLE = -1;
+
+    private static final Logger loopLogger = Logger.getLogger(GameLoop.class.getName());
+    private static final ScheduledThreadPoolExecutor engine;
+    private static volatile Thread engineThread;
+    // количество задач, ожидающих выполнения
+    private static final AtomicInteger queued = new AtomicInteger();
+    // текущее поколение игры
+    private static final AtomicInteger generation = new AtomicInteger();
+    // поколение, которому принадлежит выполняемый ход, либо IDLE
+    private static final AtomicInteger owner = new AtomicInteger(IDLE);
+    // изменения интерфейса, накопленные текущей фазой (используется только потоком движка)
+    private static final List<Runnable> uiBatch = new ArrayList<>();
+
+    static {
+        engine = new ScheduledThreadPoolExecutor(1, task -> {
+            Thread thread = new Thread(task, "lines-engine");
+            thread.setDaemon(true);
+            engineThread = thread;
+            return thread;
+        });
+        engine.setRemoveOnCancelPolicy(true);
+    }
+
+    private GameLoop() { }
+
+    /**
+     * Попытка занять движок для выполнения хода. Вызывается в EDT.
+     *
+     * @return поколение игры, которому принадлежит ход, либо -1, если движок занят.
+     */
+    public static int tryBegin() {
+        int current = generation.get();
+        return owner.compareAndSet(IDLE, current) ? current : IDLE;
+    }
+
+    /**
+     * Начало нового поколения игры: фазы, запланированные ранее, будут отброшены, а движок занят
+     * до вызова {@link #end(int)} с возвращённым поколением.
+     *
+     * @return новое поколение игры.
+     */
+    public static int restart() {
+        int current = generation.incrementAndGet();
+        owner.set(current);
+        return current;
+    }
+
+    /**
+     * Освобождение движка после завершения хода. Движок освобождается в EDT после применения
+     * всех изменений интерфейса, сделанных ходом.
+     *
+     * @param owned поколение, полученное от {@link #tryBegin()} или {@link #restart()}.
+     */
+    public static void end(int owned) {
+        ui(() -> owner.compareAndSet(owned, IDLE));
+    }
+
+    /**
+     * @return true, если движок выполняет ход.
+     */
+    public static boolean isBusy() {
+        return owner.get() != IDLE;
+    }
+
+    /**
+     * Выполнение фазы в потоке движка.
+     *
+     * @return false, если очередь движка переполнена и фаза отклонена (движок при этом освобождается).
+     */
+    public static boolean execute(int owned, Runnable phase) {
+        return schedule(owned, phase, 0);
+    }
+
+    /**
+     * Выполнение фазы в потоке движка через заданное время.
+     * Если фаза отклонена, цепочка фаз хода прерывается, поэтому движок освобождается ({@link #end(int)});
+     * вызывающий код сообщает игроку о перегрузке.
+     *
+     * @param owned       поколение игры, которому принадлежит фаза.
+     * @param phase       фаза хода.
+     * @param delayMillis задержка в миллисекундах.
+     * @return false, если очередь движка переполнена и фаза отклонена.
+     */
+    public static boolean schedule(int owned, Runnable phase, long delayMillis) {
+        if ( queued.incrementAndGet() > QUEUE_CAPACITY ) {
+            queued.decrementAndGet();
+            AsyncLog.warning(loopLogger, "Engine queue is full, phase rejected");
+            end(owned);
+            return false;
+        }
+        engine.schedule(() -> run(owned, phase), delayMillis, TimeUnit.MILLISECONDS);
+        return true;
+    }
+
+    /**
+     * Изменение интерфейса. В потоке движка изменение откладывается до конца текущей фазы,
+     * в EDT выполняется сразу, в остальных потоках передаётся в EDT.
+     */
+    public static void ui(Runnable update) {
+        if ( Thread.currentThread() == engineThread ) {
+            uiBatch.add(update);
+        } else if ( SwingUtilities.isEventDispatchThread() ) {
+            update.run();
+        } else {
+            SwingUtilities.invokeLater(update);
+        }
+    }
+
+    private static void run(int owned, Runnable phase) {
+        queued.decrementAndGet();
+        try {
+            if ( owned == generation.get() ) {
+                phase.run();
+            }
+        } catch (Throwable e) {
+            // движок освобождается при любой ошибке фазы, иначе ходы будут отклоняться до новой игры
+            loopLogger.log(Level.SEVERE, "Game phase failed", e);
+            end(owned);
+        } finally {
+            flush();
+        }
+    }
+
+    /**
+     * Передача накопленных изменений интерфейса в EDT одним пакетом.
+     */
+    private static void flush() {
+        if ( uiBatch.isEmpty() ) {
+            return;
+        }
+        Runnable[] batch = uiBatch.toArray(new Runnable[0]);
+        uiBatch.clear();
+        SwingUtilities.invokeLater( () -> {
+            for (Runnable update : batch) {
+                update.run();
+            }
+        });
+    }
+}
@@ -0,0 +1,356 @@
+package com.game.lines.logic;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import java.util.zip.CRC32;
+
+/**
+ * Таблица рекордов: результаты всех законченных игр, отдельно для каждого размера поля.
+ * <p>
+ * Результаты хранятся в файле записей фиксированной длины {@code [side, points, moves, time, crc]}, который
+ * только дописывается. Запись с неверной контрольной суммой или значениями вне допустимых границ
+ * ({@link #MAX_SIDE}, {@link #MAX_POINTS}) при чтении пропускается. При открытии файл отображается в память и читается целиком, индекс строится заново:
+ * для каждого размера поля - дерево Фенвика по количеству очков (место результата вычисляется за O(log очков))
+ * и список {@link #TOP} лучших результатов. Новые записи накапливаются в буфере и дописываются в файл
+ * отдельным потоком, поэтому {@link #add(int, int, int)} не ждёт диска и может вызываться из любого потока.
+ */
+public final class HighScores implements AutoCloseable {
+    /**
+     * Количество лучших результатов, хранимых для каждого размера поля.
+     */
+    public static final int TOP = 10;
+    /**
+     * Наибольший размер поля, результаты которого принимаются.
+     */
+    public static final int MAX_SIDE = 1024;
+    /**
+     * Граница количества очков (не включается): от неё зависит размер дерева Фенвика.
+     */
+    public static final int MAX_POINTS = 1 << 20;
+    // "LNH2"
+    private static final int MAGIC = 0x4C4E4832;
+    private static final int HEADER = 4;
+    // данные записи: side, points, moves (int) и время (long)
+    private static final int DATA = 20;
+    // размер записи: данные и их контрольная сумма CRC32 (int)
+    private static final int RECORD = DATA + 4;
+    // время ожидания записи при закрытии (в миллисекундах)
+    private static final long CLOSE_TIMEOUT = 1000;
+
+    private static final Logger scoresLogger = Logger.getLogger(HighScores.class.getName());
+
+    private final Path path;
+    private final Map<Integer, Index> indexes = new HashMap<>();
+    private final ExecutorService writer;
+    // записи, ожидающие записи в файл (доступ под монитором this)
+    private ByteBuffer pending = ByteBuffer.allocate(64 * RECORD);
+    private ByteBuffer spare = ByteBuffer.allocate(64 * RECORD);
+    private boolean flushScheduled;
+    // файл, открытый для дозаписи (используется только потоком записи)
+    private FileChannel channel;
+
+    /**
+     * Открытие таблицы рекордов: чтение файла и построение индекса.
+     *
+     * @param path файл таблицы (создаётся при первой записи).
+     */
+    public HighScores(Path path) {
+        this.path = path;
+        this.writer = Executors.newSingleThreadExecutor(task -> {
+            Thread thread = new Thread(task, "lines-scores");
+            thread.setDaemon(true);
+            return thread;
+        });
+        long start = System.nanoTime();
+        int records = load();
+        scoresLogger.fine("Loaded " + records + " scores in " + (System.nanoTime() - start) / 1000000 + " ms");
+    }
+
+    /**
+     * @return файл таблицы рекордов по умолчанию.
+     */
+    public static Path defaultPath() {
+        return SaveFile.directory().resolve("scores.bin");
+    }
+
+    private int load() {
+        if ( !Files.isRegularFile(path) ) {
+            return 0;
+        }
+        try (FileChannel in = FileChannel.open(path, StandardOpenOption.READ)) {
+            long size = in.size();
+            if ( size < HEADER ) {
+                return 0;
+            }
+            MappedByteBuffer data = in.map(FileChannel.MapMode.READ_ONLY, 0, size);
+            if ( data.getInt(0) != MAGIC ) {
+                scoresLogger.warning("Score file " + path + " is damaged and will be ignored");
+                return 0;
+            }
+            // неполная последняя запись (оборванная при аварийном завершении) не читается
+            int records = (int) ((size - HEADER) / RECORD);
+            ByteBuffer view = data.duplicate();
+            CRC32 crc = new CRC32();
+            int loaded = 0;
+            for (int i = 0; i < records; i++) {
+                int position = HEADER + i * RECORD;
+                view.limit(position + DATA);
+                view.position(position);
+                crc.reset();
+                crc.update(view);
+                int side = data.getInt(position);
+                int points = data.getInt(position + 4);
+                int moves = data.getInt(position + 8);
+                if ( (int) crc.getValue() == data.getInt(position + DATA) && valid(side, points, moves) ) {
+                    index(side).add(points, moves, data.getLong(position + 12));
+                    loaded++;
+                }
+            }
+            if ( loaded < records ) {
+                scoresLogger.warning("Skipped " + (records - loaded) + " damaged records of score file " + path);
+            }
+            return loaded;
+        } catch (IOException e) {
+            scoresLogger.log(Level.WARNING, "Cannot read score file " + path, e);
+            return 0;
+        }
+    }
+
+    private static boolean valid(int side, int points, int moves) {
+        return side > 0 && side <= MAX_SIDE && points >= 0 && points < MAX_POINTS && moves >= 0;
+    }
+
+    private Index index(int side) {
+        return indexes.computeIfAbsent(side, s -> new Index());
+    }
+
+    /**
+     * Добавление результата законченной игры.
+     *
+     * @return место результата среди игр на поле этого размера (1 - лучший результат).
+     * @throws IllegalArgumentException размер поля, очки или количество ходов вне допустимых границ.
+     */
+    public synchronized int add(int side, int points, int moves) {
+        if ( !valid(side, points, moves) ) {
+            throw new IllegalArgumentException("Score out of range: side=" + side + " points=" + points
+                    + " moves=" + moves);
+        }
+        long time = System.currentTimeMillis();
+        index(side).add(points, moves, time);
+        if ( pending.remaining() < RECORD ) {
+            ByteBuffer grown = ByteBuffer.wrap(Arrays.copyOf(pending.array(), pending.capacity() * 2));
+            grown.position(pending.position());
+            pending = grown;
+        }
+        int start = pending.position();
+        pending.putInt(side).putInt(points).putInt(moves).putLong(time);
+        CRC32 crc = new CRC32();
+        crc.update(pending.array(), pending.arrayOffset() + start, DATA);
+        pending.putInt((int) crc.getValue());
+        if ( !flushScheduled ) {
+            flushScheduled = true;
+            writer.execute(this::flush);
+        }
+        return rank(side, points);
+    }
+
+    /**
+     * @return место, которое занял бы результат points на поле размера side (1 + количество лучших результатов).
+     */
+    public synchronized int rank(int side, int points) {
+        Index index = indexes.get(side);
+        return index == null ? 1 : 1 + index.countAbove(points);
+    }
+
+    /**
+     * @return количество результатов на поле размера side.
+     */
+    public synchronized int count(int side) {
+        Index index = indexes.get(side);
+        return index == null ? 0 : index.total;
+    }
+
+    /**
+     * @return лучшие результаты на поле размера side по убыванию очков (не более {@link #TOP}).
+     */
+    public synchronized List<Entry> top(int side) {
+        Index index = indexes.get(side);
+        List<Entry> top = new ArrayList<>();
+        if ( index != null ) {
+            top.addAll(Arrays.asList(index.top).subList(0, index.topCount));
+        }
+        return top;
+    }
+
+    /**
+     * Запись накопленных результатов в файл. Выполняется потоком записи.
+     */
+    private void flush() {
+        ByteBuffer data;
+        synchronized ( this ) {
+            data = pending;
+            pending = spare;
+            spare = data;
+            flushScheduled = false;
+        }
+        data.flip();
+        try {
+            if ( channel == null ) {
+                open();
+            }
+            while ( data.hasRemaining() ) {
+                channel.write(data);
+            }
+        } catch (IOException e) {
+            scoresLogger.log(Level.WARNING, "Cannot write score file " + path, e);
+        }
+        data.clear();
+    }
+
+    private void open() throws IOException {
+        Files.createDirectories(path.toAbsolutePath().getParent());
+        channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.READ);
+        long size = channel.size();
+        ByteBuffer magic = ByteBuffer.allocate(HEADER);
+        if ( size >= HEADER && (channel.read(magic, 0) < HEADER || magic.getInt(0) != MAGIC) ) {
+            // файл другого формата не дописывается: записи в нём всё равно не читаются
+            scoresLogger.warning("Score file " + path + " has unknown format and will be rewritten");
+            size = 0;
+        }
+        if ( size < HEADER ) {
+            channel.truncate(0);
+            ByteBuffer header = ByteBuffer.allocate(HEADER).putInt(MAGIC);
+            header.flip();
+            channel.write(header, 0);
+            size = HEADER;
+        }
+        // неполная последняя запись отбрасывается, чтобы новые записи не сместились
+        long valid = HEADER + (size - HEADER) / RECORD * RECORD;
+        channel.truncate(valid);
+        channel.position(valid);
+    }
+
+    /**
+     * Запись накопленных результатов и закрытие файла. Повторный вызов ничего не делает.
+     */
+    @Override
+    public void close() {
+        synchronized ( writer ) {
+            if ( writer.isShutdown() ) {
+                return;
+            }
+            writer.execute(() -> {
+                if ( channel != null ) {
+                    try {
+                        channel.close();
+                    } catch (IOException e) {
+                        scoresLogger.log(Level.FINE, "Cannot close score file " + path, e);
+                    }
+                }
+            });
+            writer.shutdown();
+        }
+        try {
+            writer.awaitTermination(CLOSE_TIMEOUT, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Результат игры.
+     */
+    public static final class Entry {
+        private final int points;
+        private final int moves;
+        private final long time;
+
+        Entry(int points, int moves, long time) {
+            this.points = points;
+            this.moves = moves;
+            this.time = time;
+        }
+
+        public int getPoints() {
+            return points;
+        }
+
+        public int getMoves() {
+            return moves;
+        }
+
+        /**
+         * @return время окончания игры (в миллисекундах от 1970 г.).
+         */
+        public long getTime() {
+            return time;
+        }
+    }
+
+    /**
+     * Индекс результатов одного размера поля.
+     */
+    private static final class Index {
+        // дерево Фенвика по очкам: tree[i] - количество результатов в диапазоне очков (i - lowbit(i), i - 1];
+        // размер - степень двойки, при росте удваивается
+        private long[] tree = new long[1024 + 1];
+        private int total;
+        private final Entry[] top = new Entry[TOP];
+        private int topCount;
+
+        void add(int points, int moves, long time) {
+            int capacity = tree.length - 1;
+            while ( points >= capacity ) {
+                // при удвоении степени двойки новый корень содержит все прежние результаты,
+                // остальные новые узлы покрывают только новые (пустые) диапазоны
+                long[] grown = new long[2 * capacity + 1];
+                System.arraycopy(tree, 0, grown, 0, tree.length);
+                grown[2 * capacity] = total;
+                tree = grown;
+                capacity *= 2;
+            }
+            for (int i = points + 1; i <= capacity; i += i & -i) {
+                tree[i]++;
+            }
+            total++;
+            if ( topCount < TOP || points > top[topCount - 1].points ) {
+                int i = topCount < TOP ? topCount++ : topCount - 1;
+                // при равных очках раньше достигнутый результат остаётся выше
+                for (; i > 0 && top[i - 1].points < points; i--) {
+                    top[i] = top[i - 1];
+                }
+                top[i] = new Entry(points, moves, time);
+            }
+        }
+
+        /**
+         * @return количество результатов с большим количеством очков.
+         */
+        int countAbove(int points) {
+            int capacity = tree.length - 1;
+            if ( points >= capacity ) {
+                return 0;
+            }
+            long atMost = 0;
+            for (int i = points + 1; i > 0; i -= i & -i) {
+                atMost += tree[i];
+            }
+            return (int) (total - atMost);
+        }
+    }
+}
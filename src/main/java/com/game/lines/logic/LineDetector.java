@@ -0,0 +1,171 @@
+package com.game.lines.logic;
+
+import com.game.lines.model.Board;
+import com.game.lines.model.Topology;
+
+import java.util.Arrays;
+
+/**
+ * Класс LineDetector выполняет поиск линий из 5 и более шаров одного цвета только вокруг изменившихся ячеек.
+ * После каждого удаления на поле не остаётся линий, а новые линии могут появиться лишь в ячейках, куда был
+ * перемещён или где был сгенерирован шар. Поэтому достаточно проверить четыре направления через каждую такую
+ * ячейку, и стоимость поиска не зависит от размера поля. Поиск проходит по отрезкам из таблиц {@link Topology},
+ * поэтому координаты ячеек не вычисляются, а диагонали короче линии не проверяются вовсе.
+ * Результаты поиска (длины линий и ячейки для очистки) хранятся до следующего вызова {@link #search(int[], int)}.
+ */
+class LineDetector {
+    // количество направлений поиска линий: по горизонтали, по вертикали и по двум диагоналям
+    private static final int DIRECTIONS = Topology.DIRECTIONS.length;
+    // минимальная длина удаляемой линии
+    static final int LINE_LENGTH = Topology.MIN_SEGMENT;
+
+    private final Board board;
+    private final Topology topology;
+    // ячейки отрезков и позиции ячеек в них (см. Topology)
+    private final int[] segmentStarts;
+    private final int[] segmentCells;
+    private final int[] cellSegments;
+    // отметки ячеек, уже вошедших в линию данного направления при текущем поиске
+    private final int[][] stamps;
+    // отметки ячеек, вошедших хотя бы в одну линию при текущем поиске
+    private final int[] clearedStamps;
+    // номер текущего поиска; отметки с другим номером считаются устаревшими
+    private int epoch;
+
+    // индексы ячеек всех найденных линий (без повторов)
+    private final int[] cleared;
+    private int clearedCount;
+    // количество шаров в каждой найденной линии
+    private final int[] lineLength;
+    private int lineCount;
+
+    LineDetector(Board board) {
+        this.board = board;
+        this.topology = board.getTopology();
+        this.segmentStarts = topology.getSegmentStarts();
+        this.segmentCells = topology.getSegmentCells();
+        this.cellSegments = topology.getCellSegments();
+        this.stamps = new int[DIRECTIONS][board.size()];
+        this.clearedStamps = new int[board.size()];
+        this.cleared = new int[board.size()];
+        this.lineLength = new int[board.size() * DIRECTIONS];
+    }
+
+    /**
+     * Поиск линий, проходящих через изменившиеся ячейки.
+     *
+     * @param cells индексы изменившихся ячеек.
+     * @param count количество ячеек в массиве cells.
+     * @return количество найденных линий.
+     */
+    int search(int[] cells, int count) {
+        nextEpoch();
+        clearedCount = 0;
+        lineCount = 0;
+        for (int i = 0; i < count; i++) {
+            int index = cells[i];
+            if ( board.isEmpty(index) ) {
+                continue;
+            }
+            for (int d = 0; d < DIRECTIONS; d++) {
+                if ( stamps[d][index] != epoch ) {
+                    searchDirection(index, d);
+                }
+            }
+        }
+        return lineCount;
+    }
+
+    /**
+     * Поиск линии через ячейку в одном направлении: от ячейки в обе стороны отрезка, пока цвет совпадает.
+     */
+    private void searchDirection(int index, int d) {
+        int position = cellSegments[d * board.size() + index];
+        if ( position < 0 ) {
+            return;
+        }
+        byte color = board.getColor(index);
+        int segment = topology.segmentOf(position);
+        int first = segmentStarts[segment];
+        int last = segmentStarts[segment + 1];
+        int start = position;
+        while ( start > first && board.getColor(segmentCells[start - 1]) == color ) {
+            start--;
+        }
+        int end = position + 1;
+        while ( end < last && board.getColor(segmentCells[end]) == color ) {
+            end++;
+        }
+        int length = end - start;
+        if ( length < LINE_LENGTH ) {
+            return;
+        }
+        lineLength[lineCount++] = length;
+        for (int p = start; p < end; p++) {
+            int cell = segmentCells[p];
+            stamps[d][cell] = epoch;
+            if ( clearedStamps[cell] != epoch ) {
+                clearedStamps[cell] = epoch;
+                cleared[clearedCount++] = cell;
+            }
+        }
+    }
+
+    /**
+     * Длина самой длинной линии цвета color через ячейку index, если бы в ней был шар этого цвета,
+     * а ячейка ignored была бы пустой. Поле при этом не изменяется.
+     * Направления, в которых через ячейку не проходит отрезок длиной не менее {@link #LINE_LENGTH}, не учитываются.
+     */
+    int longestLine(int index, byte color, int ignored) {
+        int longest = 1;
+        for (int d = 0; d < DIRECTIONS; d++) {
+            int position = cellSegments[d * board.size() + index];
+            if ( position < 0 ) {
+                continue;
+            }
+            int segment = topology.segmentOf(position);
+            int length = 1;
+            for (int p = position - 1; p >= segmentStarts[segment] && matches(segmentCells[p], color, ignored); p--) {
+                length++;
+            }
+            for (int p = position + 1; p < segmentStarts[segment + 1] && matches(segmentCells[p], color, ignored); p++) {
+                length++;
+            }
+            longest = Math.max(longest, length);
+        }
+        return longest;
+    }
+
+    private boolean matches(int cell, byte color, int ignored) {
+        return cell != ignored && board.getColor(cell) == color;
+    }
+
+    private void nextEpoch() {
+        if ( ++epoch == Integer.MAX_VALUE ) {
+            for (int[] stamp : stamps) {
+                Arrays.fill(stamp, 0);
+            }
+            Arrays.fill(clearedStamps, 0);
+            epoch = 1;
+        }
+    }
+
+    /**
+     * @return индексы ячеек, вошедших в найденные линии; действительны первые {@link #getClearedCount()}.
+     */
+    int[] getCleared() {
+        return cleared;
+    }
+
+    int getClearedCount() {
+        return clearedCount;
+    }
+
+    /**
+     * @param line номер линии, от 0 до значения, возвращённого {@link #search(int[], int)}.
+     * @return количество шаров в линии.
+     */
+    int getLineLength(int line) {
+        return lineLength[line];
+    }
+}
@@ -0,0 +1,228 @@
+package com.game.lines.logic;
+
+import com.game.lines.model.Board;
+import com.game.lines.model.Topology;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * Класс MoveEvaluator находит лучший ход для текущего состояния поля (подсказка игроку и стратегия моделирования).
+ * <p>
+ * Оцениваются все возможные ходы (шар, достижимая пустая ячейка; перебор - см. {@link Moves}): ход, удаляющий линию, лучше любого другого
+ * и тем лучше, чем больше очков он приносит; остальные ходы оцениваются по длине линии, которую шар продолжит
+ * в целевой ячейке, по длине линии, которую он покинет, и по количеству пустых ячеек, которые окажутся
+ * замкнуты после хода. Из равных по оценке ходов выбирается ход с наименьшими индексами ячеек.
+ * <p>
+ * Шары делятся между потоками пула {@link ForkJoinPool}, если на поле не меньше 64 ячеек
+ * (все поля игры с интерфейсом, кроме 7 X 7); во время оценки поле только читается. Результат
+ * хранится до изменения поля (см. {@link Board#getVersion()}). Экземпляр не потокобезопасен: его методы
+ * вызываются потоком, владеющим полем.
+ */
+public final class MoveEvaluator {
+    // количество ячеек, начиная с которого оценка ходов распределяется между потоками
+    private static final int PARALLEL_CELLS = 64;
+    // количество ячеек-источников, оцениваемых одной подзадачей без дальнейшего деления
+    private static final int LEAF_CELLS = 32;
+    // оценка хода, удаляющего линию (к ней прибавляются очки за линию)
+    private static final int CLEAR_SCORE = 1 << 24;
+
+    // пул потоков для оценки либо null для оценки в вызывающем потоке
+    private final ForkJoinPool pool;
+    // области пустых ячеек поля (-1 для ячеек с шарами), вычисленные перед оценкой
+    private int[] regions = new int[0];
+
+    // поле и его версия, для которых вычислен лучший ход
+    private Board cachedBoard;
+    private int cachedVersion;
+    private long cachedMove = Moves.NO_MOVE;
+
+    /**
+     * @param pool пул потоков для оценки ходов либо null для оценки в вызывающем потоке.
+     */
+    public MoveEvaluator(ForkJoinPool pool) {
+        this.pool = pool;
+    }
+
+    /**
+     * Поиск лучшего хода.
+     *
+     * @param game текущая игра.
+     * @return ход, упакованный методом {@link Moves#move(int, int)}, либо {@link Moves#NO_MOVE}.
+     */
+    public long best(Game game) {
+        Board board = game.getBoard();
+        if ( board == cachedBoard && board.getVersion() == cachedVersion ) {
+            return cachedMove;
+        }
+        // области вычисляются заранее: индекс областей изменяется при чтении и не может использоваться потоками пула
+        computeRegions(game);
+        Best best = search(game, 1, pool != null && board.size() >= PARALLEL_CELLS);
+
+        cachedBoard = board;
+        cachedVersion = board.getVersion();
+        cachedMove = best.count == 0 ? Moves.NO_MOVE : best.moves[0];
+        return cachedMove;
+    }
+
+    /**
+     * Поиск нескольких лучших ходов в вызывающем потоке (без кэша), например для упорядочивания ходов
+     * при поиске на несколько ходов вперёд.
+     *
+     * @param game  текущая игра.
+     * @param moves массив, заполняемый лучшими ходами по убыванию оценки.
+     * @return количество найденных ходов.
+     */
+    public int bestMoves(Game game, long[] moves) {
+        computeRegions(game);
+        Best best = search(game, moves.length, false);
+        System.arraycopy(best.moves, 0, moves, 0, best.count);
+        return best.count;
+    }
+
+    private void computeRegions(Game game) {
+        regions = Moves.regions(game, regions);
+    }
+
+    private Best search(Game game, int capacity, boolean parallel) {
+        Search search = new Search(game, regions, capacity, 0, game.getBoard().size(), parallel);
+        return parallel ? pool.invoke(search) : search.compute();
+    }
+
+    /**
+     * Лучшие ходы среди оценённых, по убыванию оценки.
+     */
+    private static final class Best {
+        final int[] scores;
+        final long[] moves;
+        int count;
+
+        Best(int capacity) {
+            scores = new int[capacity];
+            moves = new long[capacity];
+        }
+
+        void offer(int score, int from, int to) {
+            if ( count == scores.length && score <= scores[count - 1] ) {
+                return;
+            }
+            int i = count < scores.length ? count++ : count - 1;
+            // ход встаёт после ходов с такой же оценкой
+            for (; i > 0 && scores[i - 1] < score; i--) {
+                scores[i] = scores[i - 1];
+                moves[i] = moves[i - 1];
+            }
+            scores[i] = score;
+            moves[i] = Moves.move(from, to);
+        }
+
+        Best merge(Best other) {
+            // при равной оценке первым остаётся ход с меньшими индексами (левая подзадача)
+            Best merged = new Best(scores.length);
+            int left = 0;
+            int right = 0;
+            while ( merged.count < scores.length && (left < count || right < other.count) ) {
+                boolean takeLeft = right == other.count || (left < count && scores[left] >= other.scores[right]);
+                merged.scores[merged.count] = takeLeft ? scores[left] : other.scores[right];
+                merged.moves[merged.count++] = takeLeft ? moves[left++] : other.moves[right++];
+            }
+            return merged;
+        }
+    }
+
+    /**
+     * Оценка ходов шаров, находящихся в ячейках [from, to).
+     */
+    private static final class Search extends RecursiveTask<Best> {
+        private static final long serialVersionUID = 1L;
+
+        private final Game game;
+        private final int[] regions;
+        // количество лучших ходов, которые нужно найти
+        private final int capacity;
+        private final int from;
+        private final int to;
+        // true, если задача выполняется в пуле и может делиться на подзадачи
+        private final boolean parallel;
+
+        Search(Game game, int[] regions, int capacity, int from, int to, boolean parallel) {
+            this.game = game;
+            this.regions = regions;
+            this.capacity = capacity;
+            this.from = from;
+            this.to = to;
+            this.parallel = parallel;
+        }
+
+        @Override
+        protected Best compute() {
+            if ( !parallel || to - from <= LEAF_CELLS ) {
+                return evaluate();
+            }
+            int middle = (from + to) >>> 1;
+            Search right = new Search(game, regions, capacity, middle, to, true);
+            right.fork();
+            Best left = new Search(game, regions, capacity, from, middle, true).compute();
+            return left.merge(right.join());
+        }
+
+        private Best evaluate() {
+            Best best = new Best(capacity);
+            Board board = game.getBoard();
+            Topology topology = board.getTopology();
+            // области, соседние с текущим шаром
+            int[] neighborRegions = new int[Moves.MAX_NEIGHBOR_REGIONS];
+            for (int ball = from; ball < to; ball++) {
+                int count = Moves.neighborRegions(topology, regions, ball, neighborRegions);
+                if ( count == 0 ) {
+                    continue;
+                }
+                byte color = board.getColor(ball);
+                int leaving = game.longestLine(ball, color, -1);
+                for (int target = 0; target < regions.length; target++) {
+                    if ( Moves.reachable(regions, neighborRegions, count, target) ) {
+                        best.offer(score(board, ball, target, color, leaving), ball, target);
+                    }
+                }
+            }
+            return best;
+        }
+
+        /**
+         * @param leaving длина линии, которую покидает шар.
+         * @return оценка хода шара из ячейки ball в ячейку target.
+         */
+        private int score(Board board, int ball, int target, byte color, int leaving) {
+            int line = game.longestLine(target, color, ball);
+            if ( line >= LineDetector.LINE_LENGTH ) {
+                return CLEAR_SCORE + Game.score(line);
+            }
+            return 100 * line * line - 50 * leaving * leaving - 30 * enclosed(board, ball, target);
+        }
+
+        /**
+         * @return количество пустых ячеек рядом с target, у которых после хода не останется пустых соседей.
+         */
+        private int enclosed(Board board, int ball, int target) {
+            Topology topology = board.getTopology();
+            int[] starts = topology.getNeighborStarts();
+            int[] neighbors = topology.getNeighbors();
+            int enclosed = 0;
+            for (int n = starts[target]; n < starts[target + 1]; n++) {
+                int cell = neighbors[n];
+                if ( cell == ball || !board.isEmpty(cell) ) {
+                    continue;
+                }
+                boolean open = false;
+                for (int m = starts[cell]; m < starts[cell + 1] && !open; m++) {
+                    int next = neighbors[m];
+                    open = next == ball || (next != target && board.isEmpty(next));
+                }
+                if ( !open ) {
+                    enclosed++;
+                }
+            }
+            return enclosed;
+        }
+    }
+}
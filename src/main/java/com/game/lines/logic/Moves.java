@@ -0,0 +1,103 @@
+package com.game.lines.logic;
+
+import com.game.lines.model.Topology;
+
+/**
+ * Класс Moves - упаковка хода в одно число и перебор возможных ходов, общие для оценки ходов
+ * ({@link MoveEvaluator}) и стратегий моделирования.
+ * <p>
+ * Ход возможен из ячейки с шаром в любую пустую ячейку области, соседней с шаром (см. {@link Game#region(int)}).
+ * Перебор выполняется так:
+ * <pre>
+ * regions = Moves.regions(game, regions);
+ * for (int from = 0; from &lt; regions.length; from++) {
+ *     int count = Moves.neighborRegions(topology, regions, from, neighborRegions);
+ *     for (int to = 0; count &gt; 0 &amp;&amp; to &lt; regions.length; to++) {
+ *         if ( Moves.reachable(regions, neighborRegions, count, to) ) { ... }
+ *     }
+ * }
+ * </pre>
+ */
+public final class Moves {
+    /**
+     * Признак отсутствия возможного хода.
+     */
+    public static final long NO_MOVE = -1;
+    /**
+     * Наибольшее количество областей, соседних с ячейкой (размер массива для {@link #neighborRegions}).
+     */
+    public static final int MAX_NEIGHBOR_REGIONS = 4;
+
+    private Moves() { }
+
+    /**
+     * @return ход шара из ячейки from в ячейку to, упакованный в одно число.
+     */
+    public static long move(int from, int to) {
+        return ((long) from << 32) | to;
+    }
+
+    public static int from(long move) {
+        return (int) (move >>> 32);
+    }
+
+    public static int to(long move) {
+        return (int) move;
+    }
+
+    /**
+     * Области пустых ячеек поля игры.
+     *
+     * @param regions массив для результата; заменяется новым, если его длина не равна размеру поля.
+     * @return идентификаторы областей ячеек (-1 для ячеек с шарами).
+     */
+    public static int[] regions(Game game, int[] regions) {
+        int size = game.getBoard().size();
+        if ( regions == null || regions.length != size ) {
+            regions = new int[size];
+        }
+        for (int i = 0; i < size; i++) {
+            regions[i] = game.region(i);
+        }
+        return regions;
+    }
+
+    /**
+     * Различные области пустых ячеек, соседние с ячейкой from.
+     *
+     * @param out массив длиной не менее {@link #MAX_NEIGHBOR_REGIONS} для результата.
+     * @return количество областей; 0, если в ячейке нет шара или шару некуда двигаться.
+     */
+    public static int neighborRegions(Topology topology, int[] regions, int from, int[] out) {
+        if ( regions[from] >= 0 ) {
+            return 0;
+        }
+        int[] starts = topology.getNeighborStarts();
+        int[] neighbors = topology.getNeighbors();
+        int count = 0;
+        for (int n = starts[from]; n < starts[from + 1]; n++) {
+            int region = regions[neighbors[n]];
+            if ( region >= 0 && !contains(out, count, region) ) {
+                out[count++] = region;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * @param neighborRegions области, соседние с шаром (см. {@link #neighborRegions}).
+     * @return true, если шар может переместиться в ячейку to.
+     */
+    public static boolean reachable(int[] regions, int[] neighborRegions, int count, int to) {
+        return regions[to] >= 0 && contains(neighborRegions, count, regions[to]);
+    }
+
+    private static boolean contains(int[] values, int count, int value) {
+        for (int i = 0; i < count; i++) {
+            if ( values[i] == value ) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
@@ -0,0 +1,118 @@
+package com.game.lines.logic;
+
+import com.game.lines.model.Board;
+import com.game.lines.model.Topology;
+
+import java.util.Arrays;
+
+/**
+ * Класс PathFinder проверяет возможность хода и находит кратчайший путь шара по пустым ячейкам поля.
+ * Поиск в ширину выполняется без рекурсии и без создания объектов: все массивы создаются один раз для поля,
+ * посещённые ячейки помечаются номером текущего поиска, а очередь представляет собой кольцевой буфер.
+ * Поиск прекращается, как только достигнута целевая ячейка. Соседи ячеек берутся из таблиц {@link Topology}.
+ */
+class PathFinder {
+    private final Board board;
+    // списки соседей ячеек (см. Topology)
+    private final int[] neighborStarts;
+    private final int[] neighbors;
+    // номер поиска, в котором ячейка была посещена
+    private final int[] visited;
+    // ячейка, из которой была достигнута данная ячейка
+    private final int[] parent;
+    // кольцевой буфер очереди; длина - степень двойки
+    private final int[] queue;
+    private final int mask;
+    // конец очереди (позиция следующей вставки)
+    private int tail;
+    // номер текущего поиска
+    private int epoch;
+    // найденный путь от начальной ячейки (не включая её) до целевой
+    private final int[] path;
+    private int pathLength;
+
+    PathFinder(Board board) {
+        this.board = board;
+        this.neighborStarts = board.getTopology().getNeighborStarts();
+        this.neighbors = board.getTopology().getNeighbors();
+        this.visited = new int[board.size()];
+        this.parent = new int[board.size()];
+        this.queue = new int[Integer.highestOneBit(Math.max(1, board.size() - 1)) << 1];
+        this.mask = queue.length - 1;
+        this.path = new int[board.size()];
+    }
+
+    /**
+     * Поиск пути из ячейки с шаром в пустую ячейку.
+     *
+     * @param from индекс ячейки, из которой перемещается шар.
+     * @param to   индекс пустой ячейки, в которую перемещается шар.
+     * @return true - путь существует (ход возможен), false - ход невозможен.
+     */
+    boolean search(int from, int to) {
+        pathLength = 0;
+        if ( from == to || !board.isEmpty(to) ) {
+            return false;
+        }
+        nextEpoch();
+        int head = 0;
+        tail = 0;
+        visited[from] = epoch;
+        queue[tail++ & mask] = from;
+        while ( head != tail ) {
+            int node = queue[head++ & mask];
+            for (int n = neighborStarts[node], end = neighborStarts[node + 1]; n < end; n++) {
+                if ( visit(node, neighbors[n], to) ) {
+                    buildPath(from, to);
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Посещение соседней пустой ячейки.
+     *
+     * @return true, если соседняя ячейка является целевой.
+     */
+    private boolean visit(int node, int next, int to) {
+        if ( visited[next] == epoch || !board.isEmpty(next) ) {
+            return false;
+        }
+        visited[next] = epoch;
+        parent[next] = node;
+        queue[tail++ & mask] = next;
+        return next == to;
+    }
+
+    private void buildPath(int from, int to) {
+        int length = 0;
+        for (int node = to; node != from; node = parent[node]) {
+            length++;
+        }
+        pathLength = length;
+        for (int node = to; node != from; node = parent[node]) {
+            path[--length] = node;
+        }
+    }
+
+    private void nextEpoch() {
+        if ( ++epoch == Integer.MAX_VALUE ) {
+            Arrays.fill(visited, 0);
+            epoch = 1;
+        }
+    }
+
+    /**
+     * @return ячейки найденного пути от первой после начальной до целевой включительно;
+     * действительны первые {@link #getPathLength()} элементов.
+     */
+    int[] getPath() {
+        return path;
+    }
+
+    int getPathLength() {
+        return pathLength;
+    }
+}
@@ -0,0 +1,244 @@
+package com.game.lines.logic;
+
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.SplittableRandom;
+
+/**
+ * Запись игры для воспроизведения: размер поля, начальное значение генератора случайных чисел игры
+ * и последовательность действий игрока (ходы, отмены и повторы ходов). Генерация шаров зависит только
+ * от начального значения, поэтому воспроизведение ({@link #play()}) повторяет игру в точности.
+ * <p>
+ * Формат: {@code [MAGIC, длина стороны, начальное значение, количество действий, действия]}; длина стороны,
+ * количество и действия записываются как varint (7 бит в байте), поэтому ход на поле до 11×11 занимает 2 байта.
+ * Действие - число {@code from + 2} и, для хода, число {@code to}; числа {@link #UNDO} и {@link #REDO} - отмена
+ * и повтор хода.
+ */
+public final class Replay {
+    // "LNR1"
+    private static final int MAGIC = 0x4C4E5231;
+    private static final int UNDO = 0;
+    private static final int REDO = 1;
+
+    private int side;
+    private long seed;
+    // действия: пары (from + 2, to) для хода, (UNDO | REDO, 0) для отмены и повтора
+    private int[] actions = new int[64];
+    private int count;
+    // false, если начало игры не записано (например, игра загружена из сохранения без записи)
+    private boolean valid;
+
+    /**
+     * Начало записи новой игры.
+     */
+    void begin(int side, long seed) {
+        this.side = side;
+        this.seed = seed;
+        count = 0;
+        valid = true;
+    }
+
+    /**
+     * Прекращение записи: игра начата не с начального значения генератора.
+     */
+    void invalidate() {
+        count = 0;
+        valid = false;
+    }
+
+    void move(int from, int to) {
+        add(from + 2, to);
+    }
+
+    void undo() {
+        add(UNDO, 0);
+    }
+
+    void redo() {
+        add(REDO, 0);
+    }
+
+    /**
+     * Добавление действия в формате записи: {@code from + 2} и to для хода, {@link #UNDO} или {@link #REDO} и 0
+     * для отмены и повтора (см. {@link #code(int)}, {@link #target(int)}).
+     */
+    void add(int action, int to) {
+        if ( !valid ) {
+            return;
+        }
+        if ( 2 * count + 2 > actions.length ) {
+            actions = Arrays.copyOf(actions, actions.length * 2);
+        }
+        actions[2 * count] = action;
+        actions[2 * count + 1] = to;
+        count++;
+    }
+
+    /**
+     * @return true, если записана вся игра с её начала.
+     */
+    public boolean isValid() {
+        return valid;
+    }
+
+    public int getSide() {
+        return side;
+    }
+
+    public long getSeed() {
+        return seed;
+    }
+
+    /**
+     * @return количество записанных действий игрока.
+     */
+    public int getActionCount() {
+        return count;
+    }
+
+    /**
+     * Воспроизведение игры без интерфейса с полной скоростью.
+     *
+     * @return игра в состоянии после последнего действия.
+     * @throws IllegalStateException если записанный ход невозможен (запись не соответствует правилам игры).
+     */
+    public Game play() {
+        Game game = start();
+        for (int i = 0; i < count; i++) {
+            if ( !step(game, i) ) {
+                throw new IllegalStateException("Replay diverged at action " + i);
+            }
+        }
+        return game;
+    }
+
+    /**
+     * Пошаговое воспроизведение: игра в начальном состоянии, к которой действия применяются
+     * методом {@link #step(Game, int)}.
+     */
+    public Game start() {
+        Game game = new Game(side, new SplittableRandom(seed));
+        game.setJournal(new TurnJournal());
+        game.start(seed);
+        return game;
+    }
+
+    /**
+     * Выполнение действия с номером action в игре, начатой методом {@link #start()}.
+     *
+     * @return false, если действие невозможно (запись не соответствует игре).
+     */
+    public boolean step(Game game, int action) {
+        int code = actions[2 * action];
+        if ( code == UNDO ) {
+            return game.undo();
+        }
+        if ( code == REDO ) {
+            return game.redo();
+        }
+        return game.turn(code - 2, actions[2 * action + 1]);
+    }
+
+    /**
+     * @return код действия с номером action в формате записи.
+     */
+    int code(int action) {
+        return actions[2 * action];
+    }
+
+    /**
+     * @return ячейка, в которую перемещается шар действием с номером action (0 для отмены и повтора).
+     */
+    int target(int action) {
+        return actions[2 * action + 1];
+    }
+
+    /**
+     * @return true, если действие с номером action - ход (а не отмена или повтор хода).
+     */
+    public boolean isMove(int action) {
+        return actions[2 * action] > REDO;
+    }
+
+    /**
+     * @return запись в двоичном формате.
+     */
+    public byte[] toBytes() {
+        if ( !valid ) {
+            throw new IllegalStateException("Game start is not recorded");
+        }
+        // varint занимает не более 5 байт
+        ByteBuffer data = ByteBuffer.allocate(4 + 5 + 8 + 5 + count * 10);
+        data.putInt(MAGIC);
+        putVarint(data, side);
+        data.putLong(seed);
+        putVarint(data, count);
+        for (int i = 0; i < count; i++) {
+            int action = actions[2 * i];
+            putVarint(data, action);
+            if ( action > REDO ) {
+                putVarint(data, actions[2 * i + 1]);
+            }
+        }
+        return Arrays.copyOf(data.array(), data.position());
+    }
+
+    /**
+     * @param bytes запись в двоичном формате ({@link #toBytes()}).
+     * @throws IllegalArgumentException если данные не являются записью игры.
+     */
+    public static Replay fromBytes(byte[] bytes) {
+        ByteBuffer data = ByteBuffer.wrap(bytes);
+        try {
+            if ( data.getInt() != MAGIC ) {
+                throw new IllegalArgumentException("Not a replay");
+            }
+            Replay replay = new Replay();
+            replay.begin(getVarint(data), data.getLong());
+            int count = getVarint(data);
+            for (int i = 0; i < count; i++) {
+                int action = getVarint(data);
+                replay.add(action, action > REDO ? getVarint(data) : 0);
+            }
+            return replay;
+        } catch (BufferUnderflowException e) {
+            throw new IllegalArgumentException("Replay is truncated", e);
+        }
+    }
+
+    public void write(Path path) throws IOException {
+        Path parent = path.toAbsolutePath().getParent();
+        if ( parent != null ) {
+            Files.createDirectories(parent);
+        }
+        Files.write(path, toBytes());
+    }
+
+    public static Replay read(Path path) throws IOException {
+        return fromBytes(Files.readAllBytes(path));
+    }
+
+    private static void putVarint(ByteBuffer data, int value) {
+        while ( (value & ~0x7F) != 0 ) {
+            data.put((byte) (value & 0x7F | 0x80));
+            value >>>= 7;
+        }
+        data.put((byte) value);
+    }
+
+    private static int getVarint(ByteBuffer data) {
+        int value = 0;
+        for (int shift = 0; shift < 35; shift += 7) {
+            byte next = data.get();
+            value |= (next & 0x7F) << shift;
+            if ( next >= 0 ) {
+                return value;
+            }
+        }
+        throw new IllegalArgumentException("Malformed varint");
+    }
+}
@@ -0,0 +1,371 @@
+package com.game.lines.logic;
+
+import com.game.lines.model.Board;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import java.util.zip.CRC32;
+
+/**
+ * Автосохранение игры в двоичный файл.
+ * <p>
+ * Файл начинается со снимка игры: {@code [MAGIC, длина стороны, очки, шары, ходы, цвета ячеек, длина записи игры,
+ * запись игры, CRC32]}, цвета упакованы по два в байт, запись игры ({@link Replay#toBytes()}) - начальное значение
+ * генератора и действия игрока с начала игры (пуста, если игра не записывается). За снимком дописываются записи
+ * ходов: {@code [n, изменение_1 ... изменение_n, очки, шары, ходы, k, действие_1 ... действие_k, CRC32]}, где
+ * изменение - индекс ячейки и её новый цвет, а действия - действия игрока после предыдущей записи в формате
+ * {@link Replay} (два числа на действие). Запись хода содержит только ячейки,
+ * изменившиеся с предыдущей записи, поэтому отмена и повтор хода записываются так же, как ход. Ячейки берутся
+ * из журнала ходов игры ({@link TurnJournal#last}), поэтому запись хода стоит O(изменений хода), а не O(поля);
+ * если журнала нет или ход в нём не сохранился, вместо записи файл заменяется снимком.
+ * <p>
+ * Записи готовятся в потоке движка, а пишутся в файл ({@link FileChannel}) отдельным потоком, поэтому ни EDT,
+ * ни движок не ждут диска. После {@link #COMPACT_RECORDS} записей файл заменяется новым снимком: снимок пишется
+ * во временный файл и атомарно переименовывается. При загрузке записи применяются к снимку до первой
+ * неполной или повреждённой записи (например, оборванной при аварийном завершении).
+ * <p>
+ * Если в файле есть запись игры, игра при загрузке восстанавливается воспроизведением действий с начального
+ * значения генератора: так продолжаются и генерация шаров, и запись игры для воспроизведения, и журнал отмены
+ * ходов. Поле и счётчики из файла служат проверкой: если воспроизведение с ними не совпало, игра восстанавливается
+ * по полю, как игра без записи, и её запись прекращается.
+ * <p>
+ * Файл закрывается методом {@link #close()}; обработчик завершения программы, который его вызывает,
+ * регистрирует владелец файла ({@link GameHelper}).
+ */
+final class SaveFile {
+    // "LNS2"
+    private static final int MAGIC = 0x4C4E5332;
+    // количество записей ходов, после которого файл заменяется снимком
+    private static final int COMPACT_RECORDS = 256;
+    // время ожидания записи при завершении программы (в миллисекундах)
+    private static final long CLOSE_TIMEOUT = 1000;
+
+    private static final Logger saveLogger = Logger.getLogger(SaveFile.class.getName());
+
+    private final Path path;
+    private final ExecutorService writer;
+    // отметки ячеек, уже попавших в текущую запись хода, по ячейкам поля последнего снимка
+    // (используются только потоком движка, как и остальные поля записи)
+    private int[] marks;
+    // отметка текущей записи хода
+    private int stamp;
+    // ячейки текущей записи хода без повторов и их количество
+    private int[] cells;
+    private int count;
+    private final TurnJournal.Target collector = this::collect;
+    // количество записей после снимка
+    private int records;
+    // количество действий записи игры, уже сохранённых в файле
+    private int actions;
+    // файл, открытый для дозаписи (используется только потоком записи)
+    private FileChannel channel;
+
+    /**
+     * @param path файл сохранения.
+     */
+    SaveFile(Path path) {
+        this.path = path;
+        this.writer = Executors.newSingleThreadExecutor(task -> {
+            Thread thread = new Thread(task, "lines-save");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * @return каталог файлов игры (.lines в домашнем каталоге).
+     */
+    static Path directory() {
+        return Paths.get(System.getProperty("user.home"), ".lines");
+    }
+
+    /**
+     * @param side длина стороны поля.
+     * @return файл автосохранения для поля заданного размера.
+     */
+    static Path defaultPath(int side) {
+        return directory().resolve("autosave-" + side + ".bin");
+    }
+
+    /**
+     * Загрузка игры из файла. Вызывается в потоке движка.
+     *
+     * @param game игра, поле которой имеет тот же размер, что и сохранённое.
+     * @return false, если файла нет или снимок повреждён; игра в этом случае не изменяется.
+     */
+    boolean load(Game game) {
+        ByteBuffer data;
+        try {
+            if ( !Files.isRegularFile(path) ) {
+                return false;
+            }
+            try (FileChannel in = FileChannel.open(path, StandardOpenOption.READ)) {
+                data = ByteBuffer.allocate((int) in.size());
+                while ( data.hasRemaining() && in.read(data) >= 0 ) {
+                    // чтение до конца файла
+                }
+                data.flip();
+            }
+        } catch (IOException e) {
+            saveLogger.log(Level.WARNING, "Cannot read save file " + path, e);
+            return false;
+        }
+        Board board = game.getBoard();
+        int colorsEnd = 20 + (board.size() + 1) / 2;
+        int replayLength = data.remaining() < colorsEnd + 8 ? -1 : data.getInt(colorsEnd);
+        int headerLength = colorsEnd + 4 + replayLength;
+        if ( replayLength < 0 || replayLength > data.remaining() - colorsEnd - 8 || data.getInt(0) != MAGIC
+                || data.getInt(4) != board.getSide() || data.getInt(headerLength) != crc(data, 0, headerLength) ) {
+            saveLogger.warning("Save file " + path + " is damaged or belongs to another grid size");
+            return false;
+        }
+        Replay replay = replayLength == 0 ? null : replay(data, colorsEnd + 4, replayLength, board.getSide());
+        byte[] colors = new byte[board.size()];
+        for (int i = 0; i < colors.length; i++) {
+            int pair = data.get(20 + i / 2);
+            colors[i] = (byte) ((i & 1) == 0 ? pair >>> 4 & 0xF : pair & 0xF);
+        }
+        int points = data.getInt(8);
+        int balls = data.getInt(12);
+        int moves = data.getInt(16);
+        int turns = 0;
+        int position = headerLength + 4;
+        while ( data.limit() - position >= 4 ) {
+            int count = data.getInt(position);
+            int actionCount = count < 0 || count > colors.length || data.limit() - position < 4 * count + 24
+                    ? -1 : data.getInt(position + 16 + 4 * count);
+            int length = 4 + 4 * count + 16 + 8 * actionCount;
+            if ( actionCount < 0 || actionCount > (data.limit() - position) / 8 || data.limit() - position < length + 4
+                    || data.getInt(position + length) != crc(data, position, length) ) {
+                saveLogger.warning("Save file " + path + " has a damaged record, later turns are lost");
+                break;
+            }
+            for (int i = 0; replay != null && i < actionCount; i++) {
+                int action = position + 20 + 4 * count + 8 * i;
+                replay.add(data.getInt(action), data.getInt(action + 4));
+            }
+            for (int i = 0; i < count; i++) {
+                int change = data.getInt(position + 4 + 4 * i);
+                colors[change >>> 4] = (byte) (change & 0xF);
+            }
+            points = data.getInt(position + 4 + 4 * count);
+            balls = data.getInt(position + 8 + 4 * count);
+            moves = data.getInt(position + 12 + 4 * count);
+            position += length + 4;
+            turns++;
+        }
+        if ( replay == null || !resume(game, replay, colors, points, balls, moves) ) {
+            if ( replay != null ) {
+                saveLogger.warning("Save file " + path + " does not match its replay, the game is not recorded");
+            }
+            game.reset();
+            for (int i = 0; i < colors.length; i++) {
+                if ( colors[i] != Board.EMPTY ) {
+                    board.setColor(i, colors[i]);
+                }
+            }
+            game.restore(points, balls, moves);
+        }
+        saveLogger.fine("Loaded " + path + " with " + turns + " turn records");
+        return true;
+    }
+
+    /**
+     * @return запись игры из снимка либо null, если она повреждена или относится к полю другого размера.
+     */
+    private static Replay replay(ByteBuffer data, int offset, int length, int side) {
+        byte[] bytes = new byte[length];
+        for (int i = 0; i < length; i++) {
+            bytes[i] = data.get(offset + i);
+        }
+        try {
+            Replay replay = Replay.fromBytes(bytes);
+            return replay.getSide() == side ? replay : null;
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Восстановление игры воспроизведением её записи с начального значения генератора.
+     *
+     * @return false, если действие записи невозможно или результат не совпал с сохранённым полем и счётчиками.
+     */
+    private static boolean resume(Game game, Replay replay, byte[] colors, int points, int balls, int moves) {
+        Board board = game.getBoard();
+        game.start(replay.getSeed());
+        for (int i = 0; i < replay.getActionCount(); i++) {
+            int code = replay.code(i);
+            if ( code < 0 || code - 2 >= board.size() || replay.target(i) < 0 || replay.target(i) >= board.size()
+                    || !replay.step(game, i) ) {
+                return false;
+            }
+        }
+        for (int i = 0; i < colors.length; i++) {
+            if ( board.getColor(i) != colors[i] ) {
+                return false;
+            }
+        }
+        return game.getPoints() == points && game.getBalls() == balls && game.getMoves() == moves;
+    }
+
+    /**
+     * Замена файла снимком игры (новая игра, загрузка, сжатие). Вызывается в потоке движка.
+     */
+    void snapshot(Game game) {
+        Board board = game.getBoard();
+        int size = board.size();
+        if ( marks == null || marks.length != size ) {
+            marks = new int[size];
+            cells = new int[size];
+        } else {
+            Arrays.fill(marks, 0);
+        }
+        stamp = 0;
+        records = 0;
+        Replay replay = game.getReplay();
+        byte[] recorded = replay != null && replay.isValid() ? replay.toBytes() : new byte[0];
+        actions = replay != null ? replay.getActionCount() : 0;
+        int headerLength = 20 + (size + 1) / 2 + 4 + recorded.length;
+        ByteBuffer data = ByteBuffer.allocate(headerLength + 4);
+        data.putInt(MAGIC).putInt(board.getSide());
+        data.putInt(game.getPoints()).putInt(game.getBalls()).putInt(game.getMoves());
+        for (int i = 0; i < size; i += 2) {
+            data.put((byte) (board.getColor(i) << 4 | (i + 1 < size ? board.getColor(i + 1) : 0)));
+        }
+        data.putInt(recorded.length).put(recorded);
+        data.putInt(crc(data, 0, headerLength));
+        data.flip();
+        writer.execute(() -> replace(data));
+    }
+
+    /**
+     * Дозапись изменений последнего хода, его отмены или повтора (см. {@link TurnJournal#last}).
+     * Вызывается в потоке движка после каждого такого действия: запись содержит изменения только с предыдущей
+     * записи или снимка.
+     */
+    void append(Game game) {
+        Board board = game.getBoard();
+        TurnJournal journal = game.getJournal();
+        Replay replay = game.getReplay();
+        int actionCount = replay != null && replay.isValid() ? replay.getActionCount() - actions : 0;
+        if ( marks == null || marks.length != board.size() || records >= COMPACT_RECORDS || journal == null
+                || actionCount < 0 ) {
+            snapshot(game);
+            return;
+        }
+        stamp++;
+        count = 0;
+        if ( !journal.last(collector) ) {
+            snapshot(game);
+            return;
+        }
+        int length = 4 + 4 * count + 16 + 8 * actionCount;
+        ByteBuffer data = ByteBuffer.allocate(length + 4);
+        data.putInt(count);
+        for (int i = 0; i < count; i++) {
+            data.putInt(cells[i] << 4 | board.getColor(cells[i]));
+        }
+        data.putInt(game.getPoints()).putInt(game.getBalls()).putInt(game.getMoves());
+        data.putInt(actionCount);
+        for (int i = actions; i < actions + actionCount; i++) {
+            data.putInt(replay.code(i)).putInt(replay.target(i));
+        }
+        actions += actionCount;
+        data.putInt(crc(data, 0, length));
+        data.flip();
+        records++;
+        writer.execute(() -> write(data));
+    }
+
+    /**
+     * Ячейка, изменённая ходом; ячейка, изменённая несколько раз, записывается один раз с цветом на поле.
+     */
+    private void collect(int index, byte color) {
+        if ( marks[index] != stamp ) {
+            marks[index] = stamp;
+            cells[count++] = index;
+        }
+    }
+
+    /**
+     * Завершение записи: ожидание записей, переданных потоку записи, и закрытие файла.
+     */
+    synchronized void close() {
+        if ( writer.isShutdown() ) {
+            return;
+        }
+        writer.execute(this::closeChannel);
+        writer.shutdown();
+        try {
+            writer.awaitTermination(CLOSE_TIMEOUT, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void replace(ByteBuffer data) {
+        try {
+            closeChannel();
+            Files.createDirectories(path.toAbsolutePath().getParent());
+            Path temporary = path.resolveSibling(path.getFileName() + ".tmp");
+            try (FileChannel out = FileChannel.open(temporary, StandardOpenOption.CREATE,
+                    StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+                writeFully(out, data);
+                out.force(false);
+            }
+            Files.move(temporary, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            channel = FileChannel.open(path, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+        } catch (IOException e) {
+            saveLogger.log(Level.WARNING, "Cannot write save file " + path, e);
+        }
+    }
+
+    private void write(ByteBuffer data) {
+        if ( channel == null ) {
+            // снимок не записан: запись без снимка бесполезна
+            return;
+        }
+        try {
+            writeFully(channel, data);
+        } catch (IOException e) {
+            saveLogger.log(Level.WARNING, "Cannot append to save file " + path, e);
+            closeChannel();
+        }
+    }
+
+    private void closeChannel() {
+        if ( channel != null ) {
+            try {
+                channel.close();
+            } catch (IOException e) {
+                saveLogger.log(Level.FINE, "Cannot close save file " + path, e);
+            }
+            channel = null;
+        }
+    }
+
+    private static void writeFully(FileChannel out, ByteBuffer data) throws IOException {
+        while ( data.hasRemaining() ) {
+            out.write(data);
+        }
+    }
+
+    private static int crc(ByteBuffer data, int offset, int length) {
+        CRC32 crc = new CRC32();
+        crc.update(data.array(), data.arrayOffset() + offset, length);
+        return (int) crc.getValue();
+    }
+}
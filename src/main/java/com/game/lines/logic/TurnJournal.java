@@ -0,0 +1,241 @@
+package com.game.lines.logic;
+
+/**
+ * Журнал ходов для отмены и повтора.
+ * <p>
+ * Каждый ход записывается как список изменений ячеек (перемещение шара, удаление линий, генерация шаров)
+ * и изменение счётчиков игры. Изменение ячейки упаковывается в одно число: индекс ячейки, прежний и новый цвет.
+ * Записи хранятся в кольцевом буфере целых чисел фиксированного размера:
+ * {@code [n, очки, шары, ходы, изменение_1 ... изменение_n, n]}; последнее число позволяет перемещаться
+ * по буферу назад. Когда буфер заполнен, самые старые ходы вытесняются, поэтому память ограничена независимо
+ * от длины игры, а отмена и повтор хода стоят O(количества изменений хода).
+ * <p>
+ * Записи до курсора можно отменить, после курсора - повторить; запись нового хода удаляет записи для повтора.
+ */
+public final class TurnJournal {
+    // количество служебных чисел записи: длина, счётчики очков, шаров и ходов, длина в конце записи
+    private static final int OVERHEAD = 5;
+    // размер буфера по умолчанию (в числах)
+    private static final int DEFAULT_CAPACITY = 1 << 16;
+
+    private final int[] buffer;
+    private final int mask;
+    // начало самой старой записи
+    private long head;
+    // конец последней отменяемой записи
+    private long cursor;
+    // конец последней записи для повтора
+    private long end;
+
+    // начало записываемого хода либо -1, если ход не записывается
+    private long open = -1;
+    // количество изменений ячеек записываемого хода
+    private int changes;
+    private int points;
+    private int balls;
+    private int moves;
+
+    // начало последнего записанного, отменённого или повторённого хода либо -1
+    private long last = -1;
+    // true, если этот ход отменён
+    private boolean lastUndone;
+
+    public TurnJournal() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    /**
+     * @param capacity размер буфера в числах (округляется вверх до степени двойки).
+     */
+    public TurnJournal(int capacity) {
+        buffer = new int[Integer.highestOneBit(Math.max(2, capacity) - 1) << 1];
+        mask = buffer.length - 1;
+    }
+
+    /**
+     * Удаление всех записей (новая игра).
+     */
+    public void clear() {
+        head = cursor = end = 0;
+        open = -1;
+        last = -1;
+    }
+
+    /**
+     * Начало записи хода. Записи для повтора удаляются.
+     *
+     * @param points счётчик очков перед ходом.
+     * @param balls  счётчик удалённых шаров перед ходом.
+     * @param moves  счётчик ходов перед ходом.
+     */
+    void begin(int points, int balls, int moves) {
+        end = cursor;
+        open = cursor;
+        last = -1;
+        changes = 0;
+        this.points = points;
+        this.balls = balls;
+        this.moves = moves;
+    }
+
+    /**
+     * Запись изменения ячейки записываемого хода.
+     */
+    void record(int index, byte oldColor, byte newColor) {
+        if ( open < 0 ) {
+            return;
+        }
+        if ( changes + OVERHEAD >= buffer.length ) {
+            // ход не помещается в буфер: история теряется
+            clear();
+            return;
+        }
+        reserve(open + OVERHEAD + changes + 1);
+        set(open + 4 + changes++, pack(index, oldColor, newColor));
+    }
+
+    /**
+     * Завершение записи хода.
+     *
+     * @param points счётчик очков после хода.
+     * @param balls  счётчик удалённых шаров после хода.
+     * @param moves  счётчик ходов после хода.
+     */
+    void commit(int points, int balls, int moves) {
+        if ( open < 0 ) {
+            return;
+        }
+        reserve(open + OVERHEAD + changes);
+        set(open, changes);
+        set(open + 1, points - this.points);
+        set(open + 2, balls - this.balls);
+        set(open + 3, moves - this.moves);
+        set(open + 4 + changes, changes);
+        cursor = end = open + OVERHEAD + changes;
+        last = open;
+        lastUndone = false;
+        open = -1;
+    }
+
+    /**
+     * @return true, если есть ход для отмены.
+     */
+    public boolean canUndo() {
+        return open < 0 && cursor > head;
+    }
+
+    /**
+     * @return true, если есть отменённый ход для повтора.
+     */
+    public boolean canRedo() {
+        return open < 0 && end > cursor;
+    }
+
+    /**
+     * Отмена последнего хода: изменения ячеек передаются в target в обратном порядке с прежними цветами.
+     *
+     * @return изменения счётчиков хода { очки, шары, ходы } либо null, если отменять нечего.
+     */
+    int[] undo(Target target) {
+        if ( !canUndo() ) {
+            return null;
+        }
+        int count = get(cursor - 1);
+        long start = cursor - OVERHEAD - count;
+        for (int i = count - 1; i >= 0; i--) {
+            int change = get(start + 4 + i);
+            target.set(index(change), oldColor(change));
+        }
+        cursor = start;
+        last = start;
+        lastUndone = true;
+        return new int[] { get(start + 1), get(start + 2), get(start + 3) };
+    }
+
+    /**
+     * Повтор отменённого хода: изменения ячеек передаются в target в исходном порядке с новыми цветами.
+     *
+     * @return изменения счётчиков хода { очки, шары, ходы } либо null, если повторять нечего.
+     */
+    int[] redo(Target target) {
+        if ( !canRedo() ) {
+            return null;
+        }
+        long start = cursor;
+        int count = get(start);
+        for (int i = 0; i < count; i++) {
+            int change = get(start + 4 + i);
+            target.set(index(change), newColor(change));
+        }
+        cursor = start + OVERHEAD + count;
+        last = start;
+        lastUndone = false;
+        return new int[] { get(start + 1), get(start + 2), get(start + 3) };
+    }
+
+    /**
+     * Изменения ячеек последнего записанного, отменённого или повторённого хода: ячейки передаются в target
+     * в том порядке, в котором они изменились, с цветами после этого действия (например, для автосохранения).
+     *
+     * @return false, если такого хода нет: журнал очищен, ход записывается или не поместился в буфер.
+     */
+    boolean last(Target target) {
+        if ( last < 0 || open >= 0 ) {
+            return false;
+        }
+        int count = get(last);
+        if ( lastUndone ) {
+            for (int i = count - 1; i >= 0; i--) {
+                int change = get(last + 4 + i);
+                target.set(index(change), oldColor(change));
+            }
+        } else {
+            for (int i = 0; i < count; i++) {
+                int change = get(last + 4 + i);
+                target.set(index(change), newColor(change));
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Получатель изменений ячеек при отмене и повторе.
+     */
+    interface Target {
+        void set(int index, byte color);
+    }
+
+    /**
+     * Вытеснение самых старых записей, пока буфер не вместит числа до позиции limit (не включая).
+     */
+    private void reserve(long limit) {
+        // до начала записываемого хода в буфере только завершённые записи
+        while ( limit - head > buffer.length && head < open ) {
+            head += OVERHEAD + get(head);
+        }
+    }
+
+    private int get(long position) {
+        return buffer[(int) position & mask];
+    }
+
+    private void set(long position, int value) {
+        buffer[(int) position & mask] = value;
+    }
+
+    private static int pack(int index, byte oldColor, byte newColor) {
+        return index << 8 | oldColor << 4 | newColor;
+    }
+
+    private static int index(int change) {
+        return change >>> 8;
+    }
+
+    private static byte oldColor(int change) {
+        return (byte) (change >>> 4 & 0xF);
+    }
+
+    private static byte newColor(int change) {
+        return (byte) (change & 0xF);
+    }
+}
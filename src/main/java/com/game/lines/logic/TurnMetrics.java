@@ -0,0 +1,174 @@
+package com.game.lines.logic;
+
+import com.game.lines.util.LatencyHistogram;
+
+import javax.management.JMException;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.util.Locale;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Метрики ходов: гистограммы длительности фаз хода и счётчики ходов, отклонённых кликов и удалённых линий.
+ * <p>
+ * Фаза измеряется двумя вызовами {@link System#nanoTime()} и записью в гистограмму без выделения памяти
+ * ({@link LatencyHistogram}), поэтому метрики собираются всегда. Метрики публикуются платформенным
+ * MBean-сервером ({@link #register()}), их можно смотреть в JConsole или VisualVM; при завершении программы
+ * сводка выводится в стандартный поток ошибок.
+ */
+public final class TurnMetrics implements TurnMetricsMXBean {
+    /**
+     * Имя объекта метрик в MBean-сервере.
+     */
+    public static final String OBJECT_NAME = "com.game.lines:type=TurnMetrics";
+
+    /**
+     * Измеряемые фазы хода.
+     */
+    public enum Phase {
+        // проверка достижимости ячейки (области пустых ячеек)
+        REACHABILITY,
+        // поиск пути шара
+        PATH,
+        // перемещение шара
+        MOVE,
+        // поиск и удаление линий
+        LINES_SEARCH,
+        // генерация новых шаров
+        SPAWN,
+        // отрисовка поля
+        REPAINT
+    }
+
+    private static final TurnMetrics INSTANCE = new TurnMetrics();
+    private static final Logger metricsLogger = Logger.getLogger(TurnMetrics.class.getName());
+    private static boolean registered;
+
+    private final LatencyHistogram[] phases = new LatencyHistogram[Phase.values().length];
+    private final LongAdder moves = new LongAdder();
+    private final LongAdder invalidClicks = new LongAdder();
+    private final LongAdder linesCleared = new LongAdder();
+
+    private TurnMetrics() {
+        for (int i = 0; i < phases.length; i++) {
+            phases[i] = new LatencyHistogram();
+        }
+    }
+
+    public static TurnMetrics getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * Регистрация метрик в платформенном MBean-сервере и вывод сводки при завершении программы.
+     * Повторные вызовы ничего не делают.
+     */
+    public static synchronized void register() {
+        if ( registered ) {
+            return;
+        }
+        registered = true;
+        try {
+            ManagementFactory.getPlatformMBeanServer().registerMBean(INSTANCE, new ObjectName(OBJECT_NAME));
+        } catch (JMException e) {
+            metricsLogger.log(Level.WARNING, "Cannot register turn metrics", e);
+        }
+        // сводка выводится без java.util.logging: LogManager закрывает обработчики в своём обработчике
+        // завершения, который может выполниться раньше этого
+        Runtime.getRuntime().addShutdownHook(new Thread(
+                () -> System.err.println("Turn metrics:" + System.lineSeparator() + INSTANCE.getSummary()),
+                "lines-metrics"));
+    }
+
+    /**
+     * Запись длительности фазы.
+     *
+     * @param start время начала фазы ({@link System#nanoTime()}).
+     */
+    public static void record(Phase phase, long start) {
+        INSTANCE.phases[phase.ordinal()].record(System.nanoTime() - start);
+    }
+
+    static void moveMade() {
+        INSTANCE.moves.increment();
+    }
+
+    static void invalidClick() {
+        INSTANCE.invalidClicks.increment();
+    }
+
+    static void linesCleared(int lines) {
+        INSTANCE.linesCleared.add(lines);
+    }
+
+    @Override
+    public long getMoves() {
+        return moves.sum();
+    }
+
+    @Override
+    public long getInvalidClicks() {
+        return invalidClicks.sum();
+    }
+
+    @Override
+    public long getLinesCleared() {
+        return linesCleared.sum();
+    }
+
+    @Override
+    public LatencyHistogram.Snapshot getReachability() {
+        return snapshot(Phase.REACHABILITY);
+    }
+
+    @Override
+    public LatencyHistogram.Snapshot getPath() {
+        return snapshot(Phase.PATH);
+    }
+
+    @Override
+    public LatencyHistogram.Snapshot getMove() {
+        return snapshot(Phase.MOVE);
+    }
+
+    @Override
+    public LatencyHistogram.Snapshot getLinesSearch() {
+        return snapshot(Phase.LINES_SEARCH);
+    }
+
+    @Override
+    public LatencyHistogram.Snapshot getSpawn() {
+        return snapshot(Phase.SPAWN);
+    }
+
+    @Override
+    public LatencyHistogram.Snapshot getRepaint() {
+        return snapshot(Phase.REPAINT);
+    }
+
+    private LatencyHistogram.Snapshot snapshot(Phase phase) {
+        return phases[phase.ordinal()].snapshot();
+    }
+
+    @Override
+    public String getSummary() {
+        StringBuilder summary = new StringBuilder(String.format(Locale.ROOT,
+                "moves=%d invalidClicks=%d linesCleared=%d", getMoves(), getInvalidClicks(), getLinesCleared()));
+        for (Phase phase : Phase.values()) {
+            summary.append(String.format(Locale.ROOT, "%n%-12s %s", phase, snapshot(phase)));
+        }
+        return summary.toString();
+    }
+
+    @Override
+    public void reset() {
+        for (LatencyHistogram phase : phases) {
+            phase.reset();
+        }
+        moves.reset();
+        invalidClicks.reset();
+        linesCleared.reset();
+    }
+}
@@ -0,0 +1,33 @@
+package com.game.lines.logic;
+
+import com.game.lines.util.LatencyHistogram;
+
+/**
+ * Метрики ходов, публикуемые через JMX (объект {@value TurnMetrics#OBJECT_NAME}).
+ */
+public interface TurnMetricsMXBean {
+    long getMoves();
+
+    long getInvalidClicks();
+
+    long getLinesCleared();
+
+    LatencyHistogram.Snapshot getReachability();
+
+    LatencyHistogram.Snapshot getPath();
+
+    LatencyHistogram.Snapshot getMove();
+
+    LatencyHistogram.Snapshot getLinesSearch();
+
+    LatencyHistogram.Snapshot getSpawn();
+
+    LatencyHistogram.Snapshot getRepaint();
+
+    /**
+     * @return сводка всех метрик в одну строку на фазу.
+     */
+    String getSummary();
+
+    void reset();
+}
@@ -0,0 +1,246 @@
+package com.game.lines.model;
+
+/**
+ * Класс Board хранит состояние игрового поля без привязки к Swing.
+ * Цвета шаров хранятся в одномерном массиве {@link #colors}, индекс ячейки вычисляется по её координатам
+ * методом {@link #index(int, int)}. Координаты начинаются с единицы.
+ * Представление поля в интерфейсе лишь отображает это состояние и обновляется через {@link BoardListener}.
+ * <p>
+ * Пустые ячейки дополнительно хранятся плотным множеством: массив {@link #emptyCells} содержит индексы пустых
+ * ячеек, а {@link #emptyPositions} - позицию каждой ячейки в этом массиве. Добавление, удаление
+ * (перестановкой с последним элементом) и выбор n-й пустой ячейки выполняются за O(1).
+ */
+public class Board {
+    /**
+     * Код пустой ячейки. Коды цветов шаров - от 1 до {@link #COLORS} включительно.
+     */
+    public static final byte EMPTY = 0;
+    /**
+     * Количество цветов шаров в игре.
+     */
+    public static final int COLORS = 9;
+
+    private final int side;          // длина стороны поля (в ячейках)
+    private final byte[] colors;     // цвета ячеек, индексированные по упакованным координатам
+    private final Topology topology; // таблицы соседства и линий для поля этого размера
+    private final int[] emptyCells;     // индексы пустых ячеек; действительны первые emptyCount
+    private final int[] emptyPositions; // позиция ячейки в emptyCells либо -1 для ячейки с шаром
+    private int emptyCount;          // количество пустых ячеек
+    private int version;             // номер версии поля, увеличивается при каждом изменении ячейки
+    private long hash;               // хэш Зобриста позиции (см. Topology#zobrist)
+    private BoardListener listener;  // слушатель изменений (отображение поля)
+
+    public Board(int side) {
+        this.side = side;
+        this.colors = new byte[side * side];
+        this.topology = Topology.of(side);
+        this.emptyCells = new int[colors.length];
+        this.emptyPositions = new int[colors.length];
+        for (int i = 0; i < colors.length; i++) {
+            emptyCells[i] = i;
+            emptyPositions[i] = i;
+        }
+        this.emptyCount = colors.length;
+    }
+
+    /**
+     * Копия поля (без слушателя изменений).
+     */
+    public Board(Board other) {
+        this(other.side);
+        copyFrom(other);
+    }
+
+    /**
+     * Копирование состояния поля того же размера. Слушатель не уведомляется: копирование используется
+     * для рабочих полей поиска ходов, у которых нет отображения.
+     */
+    public void copyFrom(Board other) {
+        if ( other.side != side ) {
+            throw new IllegalArgumentException("Board side " + other.side + " differs from " + side);
+        }
+        System.arraycopy(other.colors, 0, colors, 0, colors.length);
+        System.arraycopy(other.emptyCells, 0, emptyCells, 0, emptyCells.length);
+        System.arraycopy(other.emptyPositions, 0, emptyPositions, 0, emptyPositions.length);
+        emptyCount = other.emptyCount;
+        hash = other.hash;
+        version++;
+    }
+
+    public int getSide() {
+        return side;
+    }
+
+    public Topology getTopology() {
+        return topology;
+    }
+
+    /**
+     * @return общее количество ячеек на поле.
+     */
+    public int size() {
+        return colors.length;
+    }
+
+    public int getEmptyCount() {
+        return emptyCount;
+    }
+
+    /**
+     * @return хэш Зобриста позиции: одинаковые расстановки шаров имеют одинаковый хэш.
+     */
+    public long getHash() {
+        return hash;
+    }
+
+    /**
+     * @return номер версии поля; по нему производные структуры определяют, что поле изменилось.
+     */
+    public int getVersion() {
+        return version;
+    }
+
+    public void setListener(BoardListener listener) {
+        this.listener = listener;
+    }
+
+    /**
+     * @param x координата X ячейки (от 1 до {@link #side}).
+     * @param y координата Y ячейки (от 1 до {@link #side}).
+     * @return индекс ячейки в массиве {@link #colors}.
+     */
+    public int index(int x, int y) {
+        return (y - 1) * side + (x - 1);
+    }
+
+    public int x(int index) {
+        return index % side + 1;
+    }
+
+    public int y(int index) {
+        return index / side + 1;
+    }
+
+    /**
+     * @return true, если координаты находятся в пределах поля.
+     */
+    public boolean contains(int x, int y) {
+        return x >= 1 && x <= side && y >= 1 && y <= side;
+    }
+
+    public byte getColor(int index) {
+        return colors[index];
+    }
+
+    public boolean isEmpty(int index) {
+        return colors[index] == EMPTY;
+    }
+
+    /**
+     * Установка цвета ячейки. Слушатель поля получает уведомление только при фактическом изменении.
+     *
+     * @param index индекс ячейки.
+     * @param color код цвета, либо {@link #EMPTY} для очистки ячейки.
+     */
+    public void setColor(int index, byte color) {
+        byte old = colors[index];
+        if ( old == color ) {
+            return;
+        }
+        if ( old == EMPTY ) {
+            removeEmpty(index);
+        } else {
+            hash ^= topology.zobrist(index, old);
+        }
+        if ( color == EMPTY ) {
+            addEmpty(index);
+        } else {
+            hash ^= topology.zobrist(index, color);
+        }
+        colors[index] = color;
+        version++;
+        if ( listener != null ) {
+            listener.cellChanged(index, color);
+        }
+    }
+
+    private void addEmpty(int index) {
+        emptyCells[emptyCount] = index;
+        emptyPositions[index] = emptyCount++;
+    }
+
+    /**
+     * Удаление ячейки из множества пустых: на её место переносится последняя пустая ячейка.
+     */
+    private void removeEmpty(int index) {
+        int position = emptyPositions[index];
+        int last = emptyCells[--emptyCount];
+        emptyCells[position] = last;
+        emptyPositions[last] = position;
+        emptyPositions[index] = -1;
+    }
+
+    /**
+     * Очистка всех ячеек поля.
+     */
+    public void clear() {
+        for (int i = 0; i < colors.length; i++) {
+            setColor(i, EMPTY);
+        }
+        assert checkEmptyCells();
+    }
+
+    /**
+     * Получение n-й пустой ячейки множества пустых ячеек. Порядок ячеек в множестве произволен,
+     * поэтому при равновероятном n ячейка также выбирается равновероятно.
+     *
+     * @param n порядковый номер пустой ячейки, от 0 до {@link #getEmptyCount()} - 1.
+     * @return индекс найденной ячейки.
+     */
+    public int getEmptyCell(int n) {
+        if ( n < 0 || n >= emptyCount ) {
+            throw new IndexOutOfBoundsException("Empty cell " + n + " of " + emptyCount);
+        }
+        return emptyCells[n];
+    }
+
+    /**
+     * Проверка соответствия множества пустых ячеек цветам поля (для использования в assert).
+     *
+     * @return true, если множество содержит ровно пустые ячейки поля.
+     * @throws IllegalStateException если множество пустых ячеек расходится с полем.
+     */
+    public boolean checkEmptyCells() {
+        int empty = 0;
+        for (int i = 0; i < colors.length; i++) {
+            int position = emptyPositions[i];
+            if ( colors[i] == EMPTY ) {
+                empty++;
+                if ( position < 0 || position >= emptyCount || emptyCells[position] != i ) {
+                    throw new IllegalStateException("Empty cell " + i + " is missing from the free set");
+                }
+            } else if ( position != -1 ) {
+                throw new IllegalStateException("Occupied cell " + i + " is in the free set at " + position);
+            }
+        }
+        if ( empty != emptyCount ) {
+            throw new IllegalStateException("Free set holds " + emptyCount + " cells, board has " + empty);
+        }
+        return true;
+    }
+
+    /**
+     * Запись индексов "соседей" ячейки (без учёта соседей по диагонали) в переданный массив.
+     *
+     * @param index индекс ячейки.
+     * @param out   массив длиной не менее 4.
+     * @return количество найденных соседей.
+     */
+    public int neighbors(int index, int[] out) {
+        int[] starts = topology.getNeighborStarts();
+        int start = starts[index];
+        int count = starts[index + 1] - start;
+        System.arraycopy(topology.getNeighbors(), start, out, 0, count);
+        return count;
+    }
+}
@@ -0,0 +1,8 @@
+package com.game.lines.model;
+
+/**
+ * Интерфейс BoardListener позволяет получать уведомления об изменении ячеек игрового поля {@link Board}.
+ */
+public interface BoardListener {
+    void cellChanged(int index, byte color); // цвет ячейки с индексом index изменился на color
+}
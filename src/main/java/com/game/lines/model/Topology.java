@@ -0,0 +1,190 @@
+package com.game.lines.model;
+
+import java.util.Arrays;
+import java.util.SplittableRandom;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Класс Topology содержит заранее вычисленные таблицы соседства и линий для поля заданного размера.
+ * Таблицы строятся один раз для каждого размера поля ({@link #of(int)}), не изменяются и используются всеми
+ * полями этого размера, в том числе из разных потоков. Поиск пути и поиск линий лишь проходят по массивам,
+ * не вычисляя координаты и не проверяя границы поля.
+ * <p>
+ * Соседи ячейки i (без учёта соседей по диагонали) - элементы {@link #getNeighbors()} с индексами
+ * от {@code getNeighborStarts()[i]} до {@code getNeighborStarts()[i + 1]} (не включая).
+ * <p>
+ * Отрезки - это строки, столбцы и диагонали поля длиной не менее {@link #MIN_SEGMENT} ячеек; только в них
+ * может появиться удаляемая линия. Ячейки отрезка s - элементы {@link #getSegmentCells()} с индексами
+ * от {@code getSegmentStarts()[s]} до {@code getSegmentStarts()[s + 1]} (не включая), в порядке направления.
+ * Для каждого направления d и ячейки i {@code getCellSegments()[d * size + i]} - позиция ячейки
+ * в массиве {@link #getSegmentCells()}, либо -1, если через ячейку в этом направлении не проходит отрезок.
+ * <p>
+ * Ключи Зобриста ({@link #zobrist(int, byte)}) - случайные 64-битные числа для каждой пары (ячейка, цвет);
+ * хэш поля равен XOR ключей всех шаров и обновляется при изменении ячейки за O(1) (см. {@link Board#getHash()}).
+ * Ключи зависят только от размера поля, поэтому хэш одной и той же позиции одинаков во всех потоках и запусках.
+ */
+public final class Topology {
+    /**
+     * Направления отрезков { dx, dy }: по горизонтали, по вертикали и по двум диагоналям.
+     */
+    public static final int[][] DIRECTIONS = { {1, 0}, {0, 1}, {1, 1}, {1, -1} };
+    /**
+     * Минимальная длина отрезка (равна минимальной длине удаляемой линии).
+     */
+    public static final int MIN_SEGMENT = 5;
+
+    private static final ConcurrentMap<Integer, Topology> CACHE = new ConcurrentHashMap<>();
+
+    private final int side;
+    private final int[] neighborStarts;
+    private final int[] neighbors;
+    private final int[] segmentStarts;
+    private final int[] segmentCells;
+    // номер отрезка для каждой позиции массива segmentCells
+    private final int[] segmentOf;
+    private final int[] cellSegments;
+    // ключи Зобриста: [index * COLORS + color - 1]
+    private final long[] zobrist;
+
+    /**
+     * @param side длина стороны поля.
+     * @return таблицы для поля заданного размера (строятся при первом обращении).
+     */
+    public static Topology of(int side) {
+        return CACHE.computeIfAbsent(side, Topology::new);
+    }
+
+    private Topology(int side) {
+        this.side = side;
+        int size = side * side;
+
+        neighborStarts = new int[size + 1];
+        int[] buffer = new int[size * 4];
+        int count = 0;
+        for (int i = 0; i < size; i++) {
+            neighborStarts[i] = count;
+            int x = i % side;
+            int y = i / side;
+            if ( x > 0 )        { buffer[count++] = i - 1; }
+            if ( x < side - 1 ) { buffer[count++] = i + 1; }
+            if ( y > 0 )        { buffer[count++] = i - side; }
+            if ( y < side - 1 ) { buffer[count++] = i + side; }
+        }
+        neighborStarts[size] = count;
+        neighbors = Arrays.copyOf(buffer, count);
+
+        cellSegments = new int[DIRECTIONS.length * size];
+        Arrays.fill(cellSegments, -1);
+        int[] starts = new int[DIRECTIONS.length * 2 * side + 1];
+        int[] cells = new int[DIRECTIONS.length * size];
+        int segments = 0;
+        int position = 0;
+        for (int d = 0; d < DIRECTIONS.length; d++) {
+            int dx = DIRECTIONS[d][0];
+            int dy = DIRECTIONS[d][1];
+            // отрезок начинается в ячейке, предыдущая ячейка которой (x - dx, y - dy) находится вне поля
+            for (int i = 0; i < size; i++) {
+                int x = i % side;
+                int y = i / side;
+                if ( inside(x - dx, y - dy) || length(x, y, dx, dy) < MIN_SEGMENT ) {
+                    continue;
+                }
+                starts[segments++] = position;
+                for (; inside(x, y); x += dx, y += dy) {
+                    int cell = y * side + x;
+                    cellSegments[d * size + cell] = position;
+                    cells[position++] = cell;
+                }
+            }
+        }
+        starts[segments] = position;
+        segmentStarts = Arrays.copyOf(starts, segments + 1);
+        segmentCells = Arrays.copyOf(cells, position);
+        segmentOf = new int[position];
+        for (int s = 0; s < segments; s++) {
+            Arrays.fill(segmentOf, segmentStarts[s], segmentStarts[s + 1], s);
+        }
+
+        SplittableRandom random = new SplittableRandom(side);
+        zobrist = new long[size * Board.COLORS];
+        for (int i = 0; i < zobrist.length; i++) {
+            zobrist[i] = random.nextLong();
+        }
+    }
+
+    private boolean inside(int x, int y) {
+        return x >= 0 && x < side && y >= 0 && y < side;
+    }
+
+    private int length(int x, int y, int dx, int dy) {
+        int length = 0;
+        for (; inside(x, y); x += dx, y += dy) {
+            length++;
+        }
+        return length;
+    }
+
+    public int getSide() {
+        return side;
+    }
+
+    /**
+     * @return начала списков соседей; длина массива - количество ячеек + 1.
+     */
+    public int[] getNeighborStarts() {
+        return neighborStarts;
+    }
+
+    /**
+     * @return списки соседей всех ячеек подряд. Массив общий для всех полей размера, изменять его нельзя.
+     */
+    public int[] getNeighbors() {
+        return neighbors;
+    }
+
+    /**
+     * @return начала отрезков в массиве {@link #getSegmentCells()}; длина массива - количество отрезков + 1.
+     */
+    public int[] getSegmentStarts() {
+        return segmentStarts;
+    }
+
+    /**
+     * @return ячейки всех отрезков подряд. Массив общий для всех полей размера, изменять его нельзя.
+     */
+    public int[] getSegmentCells() {
+        return segmentCells;
+    }
+
+    /**
+     * @return позиции ячеек в массиве {@link #getSegmentCells()} по направлениям: [d * size + index].
+     */
+    public int[] getCellSegments() {
+        return cellSegments;
+    }
+
+    /**
+     * @param position позиция в массиве {@link #getSegmentCells()}.
+     * @return номер отрезка, которому принадлежит позиция.
+     */
+    public int segmentOf(int position) {
+        return segmentOf[position];
+    }
+
+    /**
+     * @param index индекс ячейки.
+     * @param color код цвета (от 1 до {@link Board#COLORS}).
+     * @return ключ Зобриста шара заданного цвета в ячейке.
+     */
+    public long zobrist(int index, byte color) {
+        return zobrist[index * Board.COLORS + color - 1];
+    }
+
+    /**
+     * @return количество отрезков.
+     */
+    public int getSegmentCount() {
+        return segmentStarts.length - 1;
+    }
+}
@@ -0,0 +1,279 @@
+package com.game.lines.net;
+
+import com.game.lines.engine.GameSession;
+import com.game.lines.engine.SessionListener;
+import com.game.lines.engine.TurnResult;
+import com.game.lines.logic.Game;
+import com.game.lines.model.Board;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.SocketChannel;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Соединение с клиентом сервера. Запросы читаются и разбираются потоком селектора; ответы формируются потоками
+ * движка сессий прямо в выходном буфере соединения (direct-буфер, без промежуточных массивов) и отправляются
+ * потоком селектора. Если клиент не успевает читать и выходной буфер переполняется, соединение закрывается.
+ * <p>
+ * Запросы принимаются только к сессиям, созданным этим соединением. Сессии, созданные соединением, и подписки
+ * на события удаляются при его закрытии.
+ */
+final class Connection implements SessionListener {
+    // размер входного буфера
+    private static final int INPUT_CAPACITY = 4096;
+    // размер выходного буфера: несколько снимков поля наибольшего размера
+    private static final int OUTPUT_CAPACITY = 4 * (32 + Protocol.MAX_SIDE * Protocol.MAX_SIDE);
+
+    private final GameServer server;
+    private final SocketChannel channel;
+    private final SelectionKey key;
+    private final ByteBuffer input = ByteBuffer.allocateDirect(INPUT_CAPACITY);
+    // выходной буфер в режиме записи; доступ под его монитором
+    private final ByteBuffer output = ByteBuffer.allocateDirect(OUTPUT_CAPACITY);
+    // true, если соединение ожидает отправки в очереди селектора
+    final AtomicBoolean flushQueued = new AtomicBoolean();
+    private volatile boolean overflow;
+    // сессии, созданные соединением, и сессии, на события которых оно подписано (только поток селектора)
+    private final Map<Long, GameSession> owned = new HashMap<>();
+    private final Map<Long, GameSession> subscribed = new HashMap<>();
+
+    Connection(GameServer server, SocketChannel channel, SelectionKey key) {
+        this.server = server;
+        this.channel = channel;
+        this.key = key;
+    }
+
+    /**
+     * Чтение и обработка запросов. Вызывается потоком селектора.
+     *
+     * @return false, если соединение нужно закрыть.
+     */
+    boolean read() throws IOException {
+        if ( channel.read(input) < 0 ) {
+            return false;
+        }
+        input.flip();
+        try {
+            while ( input.remaining() >= 4 ) {
+                int length = input.getInt(input.position());
+                if ( length < 1 || length > Protocol.MAX_REQUEST ) {
+                    return false;
+                }
+                if ( input.remaining() < 4 + length ) {
+                    break;
+                }
+                int next = input.position() + 4 + length;
+                input.position(input.position() + 4);
+                if ( !handle(input.get(), length - 1) ) {
+                    return false;
+                }
+                input.position(next);
+            }
+        } finally {
+            input.compact();
+        }
+        return true;
+    }
+
+    /**
+     * Обработка запроса; данные запроса - следующие size байт входного буфера.
+     *
+     * @return false, если запрос некорректен и соединение нужно закрыть.
+     */
+    private boolean handle(byte type, int size) {
+        if ( type == Protocol.NEW_GAME ) {
+            if ( size < 12 ) {
+                return false;
+            }
+            int side = input.getInt();
+            long seed = input.getLong();
+            if ( side < 5 || side > Protocol.MAX_SIDE ) {
+                sendError(0, Protocol.BAD_REQUEST);
+                return true;
+            }
+            GameSession session = server.getEngine().create(side);
+            owned.put(session.getId(), session);
+            long id = session.getId();
+            session.newGame(seed).whenComplete((ignored, error) -> {
+                if ( error != null ) {
+                    sendError(id, Protocol.BUSY);
+                } else {
+                    sendGame(id);
+                }
+            });
+            return true;
+        }
+        if ( size < 8 ) {
+            return false;
+        }
+        long id = input.getLong();
+        // сессии других соединений для этого соединения не существуют
+        GameSession session = owned.get(id);
+        if ( session == null ) {
+            sendError(id, Protocol.UNKNOWN_SESSION);
+            return true;
+        }
+        switch ( type ) {
+            case Protocol.BOARD:
+                session.submit(game -> {
+                    sendBoard(id, game);
+                    return null;
+                }).whenComplete((ignored, error) -> {
+                    if ( error != null ) {
+                        sendError(id, Protocol.BUSY);
+                    }
+                });
+                return true;
+            case Protocol.MOVE:
+                if ( size < 16 ) {
+                    return false;
+                }
+                int from = input.getInt();
+                int to = input.getInt();
+                session.move(from, to).whenComplete((result, error) -> {
+                    if ( error != null ) {
+                        sendError(id, error instanceof IllegalArgumentException
+                                ? Protocol.BAD_REQUEST : Protocol.BUSY);
+                    } else {
+                        sendResult(id, result);
+                    }
+                });
+                return true;
+            case Protocol.SUBSCRIBE:
+                if ( subscribed.put(id, session) == null ) {
+                    session.addListener(this);
+                }
+                return true;
+            case Protocol.CLOSE:
+                if ( subscribed.remove(id) != null ) {
+                    session.removeListener(this);
+                }
+                owned.remove(id);
+                server.getEngine().remove(id);
+                return true;
+            default:
+                return false;
+        }
+    }
+
+    @Override
+    public void cellChanged(GameSession session, int index, byte color) {
+        synchronized ( output ) {
+            if ( reserve(4 + 1 + 8 + 4 + 1) ) {
+                output.putInt(1 + 8 + 4 + 1).put(Protocol.CELL_EVENT).putLong(session.getId()).putInt(index).put(color);
+            }
+        }
+        requestFlush();
+    }
+
+    private void sendGame(long id) {
+        synchronized ( output ) {
+            if ( reserve(4 + 1 + 8) ) {
+                output.putInt(1 + 8).put(Protocol.GAME_REPLY).putLong(id);
+            }
+        }
+        requestFlush();
+    }
+
+    private void sendResult(long id, TurnResult result) {
+        synchronized ( output ) {
+            if ( reserve(4 + 1 + 8 + 1 + 12 + 1) ) {
+                output.putInt(1 + 8 + 1 + 12 + 1).put(Protocol.RESULT_REPLY).putLong(id)
+                        .put((byte) result.getStatus().ordinal())
+                        .putInt(result.getPoints()).putInt(result.getBalls()).putInt(result.getMoves())
+                        .put((byte) (result.isGameOver() ? 1 : 0));
+            }
+        }
+        requestFlush();
+    }
+
+    /**
+     * Снимок поля пишется в выходной буфер прямо из поля игры. Вызывается в задаче сессии.
+     */
+    private void sendBoard(long id, Game game) {
+        Board board = game.getBoard();
+        int length = 1 + 8 + 16 + 1 + board.size();
+        synchronized ( output ) {
+            if ( reserve(4 + length) ) {
+                output.putInt(length).put(Protocol.BOARD_REPLY).putLong(id).putInt(board.getSide())
+                        .putInt(game.getPoints()).putInt(game.getBalls()).putInt(game.getMoves())
+                        .put((byte) (game.hasMove() ? 0 : 1));
+                for (int i = 0; i < board.size(); i++) {
+                    output.put(board.getColor(i));
+                }
+            }
+        }
+        requestFlush();
+    }
+
+    private void sendError(long id, byte code) {
+        synchronized ( output ) {
+            if ( reserve(4 + 1 + 8 + 1) ) {
+                output.putInt(1 + 8 + 1).put(Protocol.ERROR_REPLY).putLong(id).put(code);
+            }
+        }
+        requestFlush();
+    }
+
+    /**
+     * @return false, если сообщение не помещается в выходной буфер (соединение будет закрыто).
+     */
+    private boolean reserve(int length) {
+        if ( overflow || output.remaining() < length ) {
+            overflow = true;
+            return false;
+        }
+        return true;
+    }
+
+    private void requestFlush() {
+        if ( flushQueued.compareAndSet(false, true) ) {
+            server.requestFlush(this);
+        }
+    }
+
+    /**
+     * Отправка накопленных сообщений. Вызывается потоком селектора.
+     *
+     * @return false, если соединение нужно закрыть.
+     */
+    boolean flush() throws IOException {
+        flushQueued.set(false);
+        if ( overflow ) {
+            return false;
+        }
+        boolean pending;
+        synchronized ( output ) {
+            output.flip();
+            channel.write(output);
+            output.compact();
+            pending = output.position() > 0;
+        }
+        key.interestOps(pending ? SelectionKey.OP_READ | SelectionKey.OP_WRITE : SelectionKey.OP_READ);
+        return true;
+    }
+
+    /**
+     * Закрытие соединения, удаление его сессий и подписок. Вызывается потоком селектора.
+     */
+    void close() {
+        for (GameSession session : subscribed.values()) {
+            session.removeListener(this);
+        }
+        subscribed.clear();
+        for (Long id : owned.keySet()) {
+            server.getEngine().remove(id);
+        }
+        owned.clear();
+        key.cancel();
+        try {
+            channel.close();
+        } catch (IOException e) {
+            // соединение уже закрыто
+        }
+    }
+}
@@ -0,0 +1,216 @@
+package com.game.lines.net;
+
+import com.game.lines.engine.SessionEngine;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Игровой сервер для внешних ботов и нагрузочных тестов: неблокирующий сервер на петлевом интерфейсе,
+ * управляющий сессиями {@link SessionEngine} по двоичному протоколу {@link Protocol}.
+ * <p>
+ * Все соединения обслуживает один поток селектора: он принимает соединения, разбирает запросы и отправляет
+ * ответы. Сами действия выполняются пулом движка сессий; ответ записывается в буфер соединения, а соединение
+ * ставится в очередь селектора на отправку (селектор будится один раз на пакет ответов). Соединения закрываются
+ * тоже только потоком селектора, в том числе при остановке сервера ({@link #close()}).
+ * <p>
+ * Запуск: {@code java -jar lines.jar --server [port=N] [threads=N]}
+ */
+public final class GameServer implements AutoCloseable {
+    // время ожидания остановки цикла селектора (в миллисекундах)
+    private static final long CLOSE_TIMEOUT = 1000;
+
+    private static final Logger serverLogger = Logger.getLogger(GameServer.class.getName());
+
+    private final SessionEngine engine;
+    private final Selector selector;
+    private final ServerSocketChannel server;
+    // соединения, ожидающие отправки ответов
+    private final Queue<Connection> flushes = new ConcurrentLinkedQueue<>();
+    private volatile boolean running = true;
+    // true, пока выполняется цикл селектора (доступ под монитором this)
+    private boolean looping;
+    private final CountDownLatch stopped = new CountDownLatch(1);
+
+    /**
+     * @param port    порт на петлевом интерфейсе (0 - любой свободный).
+     * @param threads количество потоков движка сессий.
+     */
+    public GameServer(int port, int threads) throws IOException {
+        engine = new SessionEngine(threads);
+        selector = Selector.open();
+        server = ServerSocketChannel.open();
+        server.bind(new InetSocketAddress(InetAddress.getLoopbackAddress(), port), 1024);
+        server.configureBlocking(false);
+        server.register(selector, SelectionKey.OP_ACCEPT);
+    }
+
+    public static void main(String[] args) throws IOException {
+        Map<String, String> options = new HashMap<>();
+        for (String arg : args) {
+            int separator = arg.indexOf('=');
+            if ( separator < 0 ) {
+                throw new IllegalArgumentException("Expected key=value, got: " + arg);
+            }
+            options.put(arg.substring(0, separator), arg.substring(separator + 1));
+        }
+        int port = Integer.parseInt(options.getOrDefault("port", "7777"));
+        int threads = Integer.parseInt(options.getOrDefault("threads",
+                String.valueOf(Runtime.getRuntime().availableProcessors())));
+        try (GameServer gameServer = new GameServer(port, threads)) {
+            System.out.println("Listening on " + gameServer.getAddress());
+            gameServer.run();
+        }
+    }
+
+    public InetSocketAddress getAddress() throws IOException {
+        return (InetSocketAddress) server.getLocalAddress();
+    }
+
+    SessionEngine getEngine() {
+        return engine;
+    }
+
+    /**
+     * Цикл селектора; выполняется до вызова {@link #close()}, после чего закрывает соединения и селектор.
+     */
+    public void run() throws IOException {
+        synchronized ( this ) {
+            if ( !running ) {
+                return;
+            }
+            looping = true;
+        }
+        try {
+            loop();
+        } finally {
+            shutdown();
+            synchronized ( this ) {
+                looping = false;
+            }
+            stopped.countDown();
+        }
+    }
+
+    private void loop() throws IOException {
+        while ( running ) {
+            selector.select();
+            Connection pending;
+            while ( (pending = flushes.poll()) != null ) {
+                flush(pending);
+            }
+            Iterator<SelectionKey> keys = selector.selectedKeys().iterator();
+            while ( keys.hasNext() ) {
+                SelectionKey key = keys.next();
+                keys.remove();
+                if ( !key.isValid() ) {
+                    continue;
+                }
+                if ( key.isAcceptable() ) {
+                    accept();
+                    continue;
+                }
+                Connection connection = (Connection) key.attachment();
+                try {
+                    if ( key.isReadable() && !connection.read() ) {
+                        connection.close();
+                        continue;
+                    }
+                    if ( key.isValid() && key.isWritable() ) {
+                        flush(connection);
+                    }
+                } catch (IOException e) {
+                    serverLogger.log(Level.FINE, "Connection failed", e);
+                    connection.close();
+                }
+            }
+        }
+    }
+
+    private void accept() throws IOException {
+        SocketChannel channel;
+        while ( (channel = server.accept()) != null ) {
+            channel.configureBlocking(false);
+            channel.socket().setTcpNoDelay(true);
+            SelectionKey key = channel.register(selector, SelectionKey.OP_READ);
+            key.attach(new Connection(this, channel, key));
+        }
+    }
+
+    private void flush(Connection connection) {
+        try {
+            if ( !connection.flush() ) {
+                serverLogger.fine("Closing a connection that does not read its replies");
+                connection.close();
+            }
+        } catch (IOException e) {
+            serverLogger.log(Level.FINE, "Connection failed", e);
+            connection.close();
+        }
+    }
+
+    /**
+     * Постановка соединения в очередь на отправку ответов. Вызывается потоками движка сессий.
+     */
+    void requestFlush(Connection connection) {
+        flushes.add(connection);
+        selector.wakeup();
+    }
+
+    /**
+     * Остановка сервера. Если цикл селектора выполняется, соединения закрывает он сам (состояние соединений
+     * доступно только потоку селектора), а этот метод ждёт его завершения.
+     */
+    @Override
+    public void close() throws IOException {
+        boolean wait;
+        synchronized ( this ) {
+            running = false;
+            wait = looping;
+        }
+        if ( wait ) {
+            selector.wakeup();
+            try {
+                if ( !stopped.await(CLOSE_TIMEOUT, TimeUnit.MILLISECONDS) ) {
+                    serverLogger.warning("Selector loop did not stop in " + CLOSE_TIMEOUT + " ms");
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        } else {
+            shutdown();
+        }
+        engine.close();
+    }
+
+    /**
+     * Закрытие соединений, серверного канала и селектора. Выполняется потоком селектора либо, если цикл
+     * селектора не выполняется, потоком, вызвавшим {@link #close()}. Повторный вызов ничего не делает.
+     */
+    private synchronized void shutdown() throws IOException {
+        if ( !selector.isOpen() ) {
+            return;
+        }
+        for (SelectionKey key : selector.keys()) {
+            if ( key.attachment() instanceof Connection ) {
+                ((Connection) key.attachment()).close();
+            }
+        }
+        server.close();
+        selector.close();
+    }
+}
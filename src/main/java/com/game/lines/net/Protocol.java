@@ -0,0 +1,59 @@
+package com.game.lines.net;
+
+/**
+ * Двоичный протокол игрового сервера ({@link GameServer}).
+ * <p>
+ * Сообщения в обе стороны - кадры {@code [длина (int), тип (byte), данные]}, где длина - количество байт после
+ * поля длины; числа передаются в порядке big-endian. Каждый ответ и событие содержит идентификатор сессии,
+ * к которой относится; ответы на запросы к одной сессии приходят в порядке запросов. Запросы BOARD, MOVE,
+ * SUBSCRIBE и CLOSE принимаются только к сессиям, созданным тем же соединением; для остальных идентификаторов
+ * возвращается ERROR с кодом UNKNOWN_SESSION.
+ * <pre>
+ * Запросы:
+ *   NEW_GAME  [side (int), seed (long)]          -> GAME
+ *   BOARD     [session (long)]                   -> BOARD
+ *   MOVE      [session (long), from (int), to (int)] -> RESULT
+ *   SUBSCRIBE [session (long)]                   -> события CELL при каждом изменении ячейки
+ *   CLOSE     [session (long)]                   -> без ответа, сессия удаляется
+ * Ответы и события:
+ *   GAME      [session (long)]
+ *   BOARD     [session (long), side (int), points (int), balls (int), moves (int), gameOver (byte),
+ *              цвета side * side ячеек (byte)]
+ *   RESULT    [session (long), status (byte, {@link com.game.lines.engine.TurnResult.Status#ordinal()}),
+ *              points (int), balls (int), moves (int), gameOver (byte)]
+ *   CELL      [session (long), index (int), color (byte)]
+ *   ERROR     [session (long), code (byte)]
+ * </pre>
+ * Индексы ячеек - {@code (y - 1) * side + (x - 1)}, как в {@link com.game.lines.model.Board}.
+ */
+public final class Protocol {
+    public static final byte NEW_GAME = 1;
+    public static final byte BOARD = 2;
+    public static final byte MOVE = 3;
+    public static final byte SUBSCRIBE = 4;
+    public static final byte CLOSE = 5;
+
+    public static final byte GAME_REPLY = (byte) 0x81;
+    public static final byte BOARD_REPLY = (byte) 0x82;
+    public static final byte RESULT_REPLY = (byte) 0x83;
+    public static final byte CELL_EVENT = (byte) 0x84;
+    public static final byte ERROR_REPLY = (byte) 0xFF;
+
+    /**
+     * Коды ошибок.
+     */
+    public static final byte UNKNOWN_SESSION = 1;
+    public static final byte BAD_REQUEST = 2;
+    public static final byte BUSY = 3;
+
+    /**
+     * Наибольшая длина стороны поля, которую можно запросить у сервера.
+     */
+    public static final int MAX_SIDE = 128;
+    /**
+     * Наибольшая длина кадра запроса (без поля длины).
+     */
+    static final int MAX_REQUEST = 64;
+
+    private Protocol() { }
+}
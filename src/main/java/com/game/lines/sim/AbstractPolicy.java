@@ -0,0 +1,53 @@
+package com.game.lines.sim;
+
+import com.game.lines.logic.Game;
+import com.game.lines.logic.Moves;
+import com.game.lines.model.Topology;
+
+import java.util.SplittableRandom;
+
+/**
+ * Базовая стратегия: перебирает все возможные ходы (шар, достижимая пустая ячейка; см. {@link Moves}) и передаёт
+ * их методу {@link #consider(Game, int, int, byte)}. Области пустых ячеек вычисляются один раз за выбор хода.
+ */
+abstract class AbstractPolicy implements MovePolicy {
+    // области пустых ячеек поля (-1 для ячеек с шарами)
+    private int[] regions = new int[0];
+    // области, соседние с текущим шаром
+    private final int[] neighborRegions = new int[Moves.MAX_NEIGHBOR_REGIONS];
+
+    SplittableRandom random;
+    long best;
+
+    @Override
+    public long choose(Game game, SplittableRandom random) {
+        Topology topology = game.getBoard().getTopology();
+        regions = Moves.regions(game, regions);
+        this.random = random;
+        this.best = NO_MOVE;
+        begin();
+        for (int from = 0; from < regions.length; from++) {
+            int count = Moves.neighborRegions(topology, regions, from, neighborRegions);
+            if ( count == 0 ) {
+                continue;
+            }
+            byte color = game.getBoard().getColor(from);
+            for (int to = 0; to < regions.length; to++) {
+                if ( Moves.reachable(regions, neighborRegions, count, to) ) {
+                    consider(game, from, to, color);
+                }
+            }
+        }
+        return best;
+    }
+
+    /**
+     * Начало выбора хода.
+     */
+    void begin() { }
+
+    /**
+     * Оценка возможного хода; лучший ход сохраняется в {@link #best}.
+     */
+    abstract void consider(Game game, int from, int to, byte color);
+}
@@ -0,0 +1,245 @@
+package com.game.lines.sim;
+
+import com.game.lines.logic.Game;
+import com.game.lines.logic.MoveEvaluator;
+import com.game.lines.logic.Moves;
+import com.game.lines.model.Board;
+import com.game.lines.model.Topology;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Стратегия поиска на несколько ходов вперёд (expectimax).
+ * <p>
+ * Узлы выбора хода рассматривают {@link #WIDTH} лучших по оценке {@link MoveEvaluator} ходов. Генерация новых
+ * шаров после хода без удаления линии - узел случая: её результат оценивается средним по {@link #SAMPLES}
+ * случайным генерациям. Листья оцениваются по количеству пустых ячеек и по линиям из двух и более шаров
+ * одного цвета. Оценки позиций сохраняются в общей таблице транспозиций ({@link TranspositionTable}).
+ * <p>
+ * Глубина поиска увеличивается, пока не исчерпано время на ход; используется результат последней полностью
+ * завершённой глубины. Ходы корня оцениваются параллельно в пуле потоков, если он задан; если стратегия
+ * вызвана из задачи этого же пула (моделирование), ходы корня становятся его подзадачами.
+ */
+public class ExpectimaxPolicy implements MovePolicy {
+    // количество ходов, рассматриваемых в узле выбора хода
+    static final int WIDTH = 6;
+    // количество случайных генераций шаров в узле случая
+    static final int SAMPLES = 4;
+    // наибольшая глубина поиска (в ходах)
+    private static final int MAX_DEPTH = 3;
+    // оценка позиции без возможных ходов
+    private static final float GAME_OVER = -100;
+    // веса оценки листа: пустая ячейка и квадрат длины линии из двух и более шаров
+    private static final float EMPTY_WEIGHT = 1.0f;
+    private static final float RUN_WEIGHT = 0.2f;
+
+    private final long budgetNanos;
+    private final ForkJoinPool pool;
+    private final TranspositionTable table;
+    private final MoveEvaluator evaluator = new MoveEvaluator(null);
+    private final long[] candidates = new long[WIDTH];
+
+    /**
+     * @param budgetMillis время на выбор хода (в миллисекундах).
+     * @param pool         пул потоков для оценки ходов корня либо null для оценки в вызывающем потоке.
+     * @param table        таблица транспозиций (может разделяться между экземплярами и потоками).
+     */
+    public ExpectimaxPolicy(long budgetMillis, ForkJoinPool pool, TranspositionTable table) {
+        this.budgetNanos = TimeUnit.MILLISECONDS.toNanos(budgetMillis);
+        this.pool = pool;
+        this.table = table;
+    }
+
+    @Override
+    public long choose(Game game, SplittableRandom random) {
+        int count = evaluator.bestMoves(game, candidates);
+        if ( count == 0 ) {
+            return NO_MOVE;
+        }
+        long best = candidates[0];
+        if ( count == 1 ) {
+            return best;
+        }
+        long deadline = System.nanoTime() + budgetNanos;
+        Searcher[] searchers = new Searcher[count];
+        for (int i = 0; i < count; i++) {
+            searchers[i] = new Searcher(game, random.split(), deadline);
+        }
+        Root[] roots = new Root[count];
+        for (int depth = 1; depth <= MAX_DEPTH; depth++) {
+            for (int i = 0; i < count; i++) {
+                roots[i] = new Root(searchers[i], candidates[i], depth);
+            }
+            if ( pool != null && ForkJoinTask.getPool() == pool ) {
+                ForkJoinTask.invokeAll(roots);
+            } else if ( pool != null ) {
+                pool.invoke(new RecursiveAction() {
+                    @Override
+                    protected void compute() {
+                        invokeAll(roots);
+                    }
+                });
+            } else {
+                for (Root root : roots) {
+                    root.compute();
+                }
+            }
+            int bestRoot = -1;
+            for (int i = 0; i < count; i++) {
+                if ( Float.isNaN(roots[i].value) ) {
+                    // время истекло: глубина не завершена
+                    return best;
+                }
+                if ( bestRoot < 0 || roots[i].value > roots[bestRoot].value ) {
+                    bestRoot = i;
+                }
+            }
+            best = candidates[bestRoot];
+        }
+        return best;
+    }
+
+    /**
+     * Оценка одного хода корня.
+     */
+    private static final class Root extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        private final Searcher searcher;
+        private final long move;
+        private final int depth;
+        float value = Float.NaN;
+
+        Root(Searcher searcher, long move, int depth) {
+            this.searcher = searcher;
+            this.move = move;
+            this.depth = depth;
+        }
+
+        @Override
+        protected void compute() {
+            value = searcher.chance(searcher.root, move, depth);
+        }
+    }
+
+    /**
+     * Поиск в одном потоке: собственные копии игры для каждого уровня и собственный генератор случайных чисел.
+     */
+    private final class Searcher {
+        private final Game root;
+        private final long deadline;
+        private final MoveEvaluator moves = new MoveEvaluator(null);
+        // позиции после хода и после генерации шаров на каждом уровне поиска
+        private final Game[] afterMove = new Game[MAX_DEPTH + 1];
+        private final Game[] afterSpawn = new Game[MAX_DEPTH + 1];
+        private final long[][] buffers = new long[MAX_DEPTH + 1][WIDTH];
+        private final int[] target = new int[1];
+
+        Searcher(Game game, SplittableRandom random, long deadline) {
+            this.root = new Game(game, random);
+            this.deadline = deadline;
+            for (int depth = 1; depth <= MAX_DEPTH; depth++) {
+                afterMove[depth] = new Game(game, random);
+                afterSpawn[depth] = new Game(game, random);
+            }
+        }
+
+        /**
+         * Узел случая: ожидаемая оценка хода (очки за ход и оценка позиции после него).
+         *
+         * @return оценка либо {@link Float#NaN}, если время истекло.
+         */
+        float chance(Game state, long move, int depth) {
+            Game after = afterMove[depth];
+            after.copyFrom(state);
+            after.move(Moves.from(move), Moves.to(move));
+            target[0] = Moves.to(move);
+            if ( after.clearLines(target, 1) > 0 ) {
+                // линия удалена: шары не генерируются
+                float value = max(after, depth - 1);
+                return value + after.getPoints() - state.getPoints();
+            }
+            Game spawned = afterSpawn[depth];
+            float sum = 0;
+            for (int sample = 0; sample < SAMPLES; sample++) {
+                spawned.copyFrom(after);
+                int[] cells = spawned.spawn(Game.SPAWN_BALLS);
+                spawned.clearLines(cells, cells.length);
+                float value = max(spawned, depth - 1);
+                if ( Float.isNaN(value) ) {
+                    return Float.NaN;
+                }
+                sum += value + spawned.getPoints() - state.getPoints();
+            }
+            return sum / SAMPLES;
+        }
+
+        /**
+         * Узел выбора хода: оценка лучшего хода позиции.
+         *
+         * @return оценка либо {@link Float#NaN}, если время истекло.
+         */
+        float max(Game state, int depth) {
+            if ( System.nanoTime() > deadline ) {
+                return Float.NaN;
+            }
+            Board board = state.getBoard();
+            float value = table.get(board.getHash(), depth);
+            if ( !Float.isNaN(value) ) {
+                return value;
+            }
+            if ( !state.hasMove() ) {
+                value = GAME_OVER;
+            } else if ( depth == 0 ) {
+                value = evaluate(board);
+            } else {
+                long[] buffer = buffers[depth];
+                int count = moves.bestMoves(state, buffer);
+                value = Float.NEGATIVE_INFINITY;
+                for (int i = 0; i < count; i++) {
+                    float moveValue = chance(state, buffer[i], depth);
+                    if ( Float.isNaN(moveValue) ) {
+                        return Float.NaN;
+                    }
+                    value = Math.max(value, moveValue);
+                }
+            }
+            table.put(board.getHash(), depth, value);
+            return value;
+        }
+    }
+
+    /**
+     * Оценка листа: пустые ячейки и линии из двух и более шаров одного цвета в отрезках поля.
+     */
+    static float evaluate(Board board) {
+        Topology topology = board.getTopology();
+        int[] starts = topology.getSegmentStarts();
+        int[] cells = topology.getSegmentCells();
+        float runs = 0;
+        for (int segment = 0; segment < topology.getSegmentCount(); segment++) {
+            int length = 0;
+            byte color = Board.EMPTY;
+            for (int p = starts[segment]; p < starts[segment + 1]; p++) {
+                byte next = board.getColor(cells[p]);
+                if ( next != Board.EMPTY && next == color ) {
+                    length++;
+                } else {
+                    if ( length >= 2 ) {
+                        runs += length * length;
+                    }
+                    color = next;
+                    length = next == Board.EMPTY ? 0 : 1;
+                }
+            }
+            if ( length >= 2 ) {
+                runs += length * length;
+            }
+        }
+        return EMPTY_WEIGHT * board.getEmptyCount() + RUN_WEIGHT * runs;
+    }
+}
@@ -0,0 +1,33 @@
+package com.game.lines.sim;
+
+import com.game.lines.logic.Game;
+import com.game.lines.logic.Moves;
+
+/**
+ * "Жадная" стратегия: выбирает ход, после которого через целевую ячейку проходит самая длинная линия
+ * цвета перемещаемого шара. Ход, удаляющий линию, всегда предпочтительнее остальных; из равных по оценке
+ * ходов выбирается случайный.
+ */
+public class GreedyPolicy extends AbstractPolicy {
+    private int bestScore;
+    // количество ходов с лучшей оценкой
+    private int ties;
+
+    @Override
+    void begin() {
+        bestScore = -1;
+        ties = 0;
+    }
+
+    @Override
+    void consider(Game game, int from, int to, byte color) {
+        int score = game.longestLine(to, color, from);
+        if ( score > bestScore ) {
+            bestScore = score;
+            ties = 1;
+            best = Moves.move(from, to);
+        } else if ( score == bestScore && random.nextInt(++ties) == 0 ) {
+            best = Moves.move(from, to);
+        }
+    }
+}
@@ -0,0 +1,19 @@
+package com.game.lines.sim;
+
+import com.game.lines.logic.Game;
+import com.game.lines.logic.MoveEvaluator;
+
+import java.util.SplittableRandom;
+
+/**
+ * Стратегия "подсказки": выбирает ход, который предложила бы игроку кнопка "Подсказка" ({@link MoveEvaluator}).
+ * Ходы оцениваются в потоке моделирования, так как игры и так распределены между всеми ядрами.
+ */
+public class HintPolicy implements MovePolicy {
+    private final MoveEvaluator evaluator = new MoveEvaluator(null);
+
+    @Override
+    public long choose(Game game, SplittableRandom random) {
+        return evaluator.best(game);
+    }
+}
@@ -0,0 +1,24 @@
+package com.game.lines.sim;
+
+import com.game.lines.logic.Game;
+import com.game.lines.logic.Moves;
+
+import java.util.SplittableRandom;
+
+/**
+ * Стратегия выбора хода для моделирования игры без интерфейса.
+ * Экземпляры стратегий не потокобезопасны: каждому потоку моделирования нужен свой экземпляр.
+ */
+public interface MovePolicy {
+    /**
+     * Признак отсутствия возможного хода.
+     */
+    long NO_MOVE = Moves.NO_MOVE;
+
+    /**
+     * @param game   текущая игра.
+     * @param random генератор случайных чисел потока моделирования.
+     * @return ход, упакованный методом {@link Moves#move(int, int)}, либо {@link #NO_MOVE}.
+     */
+    long choose(Game game, SplittableRandom random);
+}
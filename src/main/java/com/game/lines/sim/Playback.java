@@ -0,0 +1,58 @@
+package com.game.lines.sim;
+
+import com.game.lines.logic.Game;
+import com.game.lines.logic.Replay;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Воспроизведение записанных игр ({@link Replay}) без интерфейса с полной скоростью: для каждой записи
+ * выводятся итоговые счётчики и хэш поля, по которым игру можно сравнить с исходной.
+ * <p>
+ * Запуск: {@code java -jar lines.jar --replay файл|каталог ...}
+ */
+public final class Playback {
+    private Playback() { }
+
+    public static void main(String[] args) throws IOException {
+        if ( args.length == 0 ) {
+            throw new IllegalArgumentException("Expected replay files or directories");
+        }
+        List<Path> paths = new ArrayList<>();
+        for (String arg : args) {
+            Path path = Paths.get(arg);
+            if ( Files.isDirectory(path) ) {
+                try (Stream<Path> files = Files.list(path)) {
+                    paths.addAll(files.filter(file -> file.toString().endsWith(".lnr")).sorted()
+                            .collect(Collectors.toList()));
+                }
+            } else {
+                paths.add(path);
+            }
+        }
+        long actions = 0;
+        long elapsed = 0;
+        for (Path path : paths) {
+            Replay replay = Replay.read(path);
+            long start = System.nanoTime();
+            Game game = replay.play();
+            long time = System.nanoTime() - start;
+            elapsed += time;
+            actions += replay.getActionCount();
+            System.out.printf(Locale.ROOT, "%s %dx%d seed=%d actions=%d points=%d balls=%d moves=%d hash=%016x time=%.2fms%n",
+                    path.getFileName(), replay.getSide(), replay.getSide(), replay.getSeed(), replay.getActionCount(),
+                    game.getPoints(), game.getBalls(), game.getMoves(), game.getBoard().getHash(), time / 1e6);
+        }
+        double seconds = elapsed / 1e9;
+        System.out.printf(Locale.ROOT, "replays=%d actions=%d time=%.2fs actions/s=%.0f%n",
+                paths.size(), actions, seconds, seconds == 0 ? 0.0 : actions / seconds);
+    }
+}
@@ -0,0 +1,25 @@
+package com.game.lines.sim;
+
+import com.game.lines.logic.Game;
+import com.game.lines.logic.Moves;
+
+/**
+ * Стратегия, выбирающая случайный ход из всех возможных с равной вероятностью.
+ */
+public class RandomPolicy extends AbstractPolicy {
+    // количество рассмотренных ходов
+    private int seen;
+
+    @Override
+    void begin() {
+        seen = 0;
+    }
+
+    @Override
+    void consider(Game game, int from, int to, byte color) {
+        // выборка с резервуаром из одного элемента
+        if ( random.nextInt(++seen) == 0 ) {
+            best = Moves.move(from, to);
+        }
+    }
+}
@@ -0,0 +1,135 @@
+package com.game.lines.sim;
+
+import com.game.lines.engine.GameSession;
+import com.game.lines.engine.SessionEngine;
+import com.game.lines.engine.TurnResult;
+import com.game.lines.logic.Moves;
+import com.game.lines.util.LatencyHistogram;
+
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Нагрузочный прогон движка сессий ({@link SessionEngine}): множество ботов одновременно играют каждый
+ * в своей сессии, пока не истечёт заданное время. Бот выбирает ход стратегией ({@link MovePolicy}) внутри
+ * задачи своей сессии и отправляет его как обычный ход; законченная игра начинается заново.
+ * Выводится количество ходов в секунду и распределение задержки хода (от отправки до результата).
+ * <p>
+ * Запуск: {@code java -jar lines.jar --sessions [sessions=N] [threads=N] [policy=random|greedy|hint]
+ * [size=N] [seconds=N] [seed=N]}
+ */
+public final class SessionLoad {
+    private static final Logger loadLogger = Logger.getLogger(SessionLoad.class.getName());
+
+    private SessionLoad() { }
+
+    public static void main(String[] args) throws InterruptedException {
+        Map<String, String> options = new HashMap<>();
+        for (String arg : args) {
+            int separator = arg.indexOf('=');
+            if ( separator < 0 ) {
+                throw new IllegalArgumentException("Expected key=value, got: " + arg);
+            }
+            options.put(arg.substring(0, separator), arg.substring(separator + 1));
+        }
+        int sessions = Integer.parseInt(options.getOrDefault("sessions", "1000"));
+        int threads = Integer.parseInt(options.getOrDefault("threads",
+                String.valueOf(Runtime.getRuntime().availableProcessors())));
+        String policyName = options.getOrDefault("policy", "random");
+        int side = Integer.parseInt(options.getOrDefault("size", "9"));
+        long seconds = Long.parseLong(options.getOrDefault("seconds", "10"));
+        long seed = Long.parseLong(options.getOrDefault("seed", String.valueOf(System.nanoTime())));
+        Supplier<MovePolicy> policy = Simulator.policy(policyName, 0, null);
+
+        System.out.printf(Locale.ROOT, "sessions=%d threads=%d policy=%s size=%d seconds=%d seed=%d%n",
+                sessions, threads, policyName, side, seconds, seed);
+        Load load = new Load(sessions);
+        SplittableRandom random = new SplittableRandom(seed);
+        try (SessionEngine engine = new SessionEngine(threads)) {
+            for (int i = 0; i < sessions; i++) {
+                Bot bot = new Bot(engine.create(side), policy.get(), random.split(), load);
+                bot.session.newGame(bot.random.nextLong()).thenRun(bot::step);
+            }
+            long start = System.nanoTime();
+            long before = load.turns.sum();
+            TimeUnit.SECONDS.sleep(seconds);
+            load.running = false;
+            long turns = load.turns.sum() - before;
+            double elapsed = (System.nanoTime() - start) / 1e9;
+            load.stopped.await(10, TimeUnit.SECONDS);
+            System.out.printf(Locale.ROOT, "turns=%d games=%d time=%.2fs turns/s=%.0f%nturn latency %s%n",
+                    turns, load.games.sum(), elapsed, turns / elapsed, load.latency.snapshot());
+        }
+    }
+
+    /**
+     * Общие счётчики прогона.
+     */
+    private static final class Load {
+        final LongAdder turns = new LongAdder();
+        final LongAdder games = new LongAdder();
+        final LatencyHistogram latency = new LatencyHistogram();
+        final CountDownLatch stopped;
+        volatile boolean running = true;
+
+        Load(int sessions) {
+            stopped = new CountDownLatch(sessions);
+        }
+    }
+
+    /**
+     * Бот одной сессии: следующий ход отправляется после получения результата предыдущего.
+     */
+    private static final class Bot {
+        private final GameSession session;
+        private final MovePolicy policy;
+        private final SplittableRandom random;
+        private final Load load;
+
+        Bot(GameSession session, MovePolicy policy, SplittableRandom random, Load load) {
+            this.session = session;
+            this.policy = policy;
+            this.random = random;
+            this.load = load;
+        }
+
+        void step() {
+            if ( !load.running ) {
+                load.stopped.countDown();
+                return;
+            }
+            session.submit(game -> game.hasMove() ? policy.choose(game, random) : MovePolicy.NO_MOVE)
+                    .thenCompose(this::play)
+                    .whenComplete((result, error) -> {
+                        if ( error != null ) {
+                            loadLogger.log(Level.WARNING, "Bot stopped", error);
+                            load.stopped.countDown();
+                        } else {
+                            step();
+                        }
+                    });
+        }
+
+        private CompletableFuture<TurnResult> play(long move) {
+            if ( move == MovePolicy.NO_MOVE ) {
+                load.games.increment();
+                return session.newGame(random.nextLong()).thenApply(ignored -> null);
+            }
+            long start = System.nanoTime();
+            return session.move(Moves.from(move), Moves.to(move)).thenApply(result -> {
+                load.latency.record(System.nanoTime() - start);
+                load.turns.increment();
+                return result;
+            });
+        }
+    }
+}
@@ -0,0 +1,258 @@
+package com.game.lines.sim;
+
+import com.game.lines.Application;
+import com.game.lines.logic.Game;
+import com.game.lines.logic.HighScores;
+import com.game.lines.logic.Moves;
+import com.game.lines.logic.Replay;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.function.Supplier;
+
+/**
+ * Моделирование игр Lines без интерфейса.
+ * Игры распределяются между всеми ядрами пулом {@link ForkJoinPool}; каждая подзадача получает собственный
+ * поток случайных чисел ({@link SplittableRandom#split()}), поэтому результат зависит только от начального
+ * значения генератора, а не от распределения задач по потокам.
+ * <p>
+ * Запуск: {@code java -jar lines.jar --simulate [games=N] [policy=random|greedy|hint|search] [size=7..12|all]
+ * [seed=N] [maxMoves=N] [threads=N] [budget=N] [record=каталог] [scores=файл]}, где budget - время на выбор хода
+ * стратегией search (в миллисекундах), record - каталог, в который сохраняются записи игр ({@link Replay}) для
+ * воспроизведения ({@link Playback}), а scores - таблица рекордов ({@link HighScores}), в которую добавляются
+ * результаты игр.
+ */
+public final class Simulator {
+    // количество игр, моделируемых одной подзадачей без дальнейшего деления
+    private static final int LEAF_GAMES = 64;
+
+    // размер таблицы транспозиций стратегии search (в позициях)
+    private static final int TABLE_CAPACITY = 1 << 20;
+
+    private Simulator() { }
+
+    public static void main(String[] args) {
+        Map<String, String> options = new HashMap<>();
+        for (String arg : args) {
+            int separator = arg.indexOf('=');
+            if ( separator < 0 ) {
+                throw new IllegalArgumentException("Expected key=value, got: " + arg);
+            }
+            options.put(arg.substring(0, separator), arg.substring(separator + 1));
+        }
+        int games = Integer.parseInt(options.getOrDefault("games", "100000"));
+        if ( games < 1 ) {
+            throw new IllegalArgumentException("Expected games >= 1, got: " + games);
+        }
+        String policyName = options.getOrDefault("policy", "random");
+        String size = options.getOrDefault("size", "all");
+        long seed = Long.parseLong(options.getOrDefault("seed", String.valueOf(System.nanoTime())));
+        int maxMoves = Integer.parseInt(options.getOrDefault("maxMoves", "100000"));
+        int threads = Integer.parseInt(options.getOrDefault("threads",
+                String.valueOf(Runtime.getRuntime().availableProcessors())));
+
+        long budget = Long.parseLong(options.getOrDefault("budget", "20"));
+        Path record = options.containsKey("record") ? Paths.get(options.get("record")) : null;
+        HighScores scores = options.containsKey("scores") ? new HighScores(Paths.get(options.get("scores"))) : null;
+        System.out.printf(Locale.ROOT, "policy=%s games=%d seed=%d threads=%d%n", policyName, games, seed, threads);
+        ForkJoinPool pool = new ForkJoinPool(threads);
+        Supplier<MovePolicy> policy = policy(policyName, budget, pool);
+        try {
+            for (int[] gridSize : Application.GRID_SIZES) {
+                int side = gridSize[2];
+                if ( size.equals("all") || size.equals(String.valueOf(side)) ) {
+                    long start = System.nanoTime();
+                    Stats stats = pool.invoke(new Simulation(side, policy, maxMoves, record, scores, 0, games,
+                            new SplittableRandom(seed)));
+                    System.out.println(stats.report(side, System.nanoTime() - start));
+                    List<HighScores.Entry> top = scores != null ? scores.top(side) : null;
+                    if ( top != null && !top.isEmpty() ) {
+                        System.out.printf(Locale.ROOT, "high scores: games=%d best=%d%n",
+                                scores.count(side), top.get(0).getPoints());
+                    }
+                }
+            }
+        } finally {
+            pool.shutdown();
+            if ( scores != null ) {
+                scores.close();
+            }
+        }
+    }
+
+    /**
+     * @param name   название стратегии.
+     * @param budget время на выбор хода стратегией search (в миллисекундах).
+     * @param pool   пул потоков моделирования, в котором стратегия search оценивает ходы корня, либо null.
+     * @return фабрика экземпляров стратегии (по экземпляру на поток моделирования).
+     */
+    static Supplier<MovePolicy> policy(String name, long budget, ForkJoinPool pool) {
+        switch ( name ) {
+            case "random":
+                return RandomPolicy::new;
+            case "greedy":
+                return GreedyPolicy::new;
+            case "hint":
+                return HintPolicy::new;
+            case "search":
+                // ходы корня - подзадачи пула моделирования: при небольшом количестве игр они занимают
+                // свободные потоки, иначе выполняются тем же потоком; таблица транспозиций общая для всех потоков
+                TranspositionTable table = new TranspositionTable(TABLE_CAPACITY);
+                return () -> new ExpectimaxPolicy(budget, pool, table);
+            default:
+                throw new IllegalArgumentException(
+                        "Unknown policy: " + name + ", expected random, greedy, hint or search");
+        }
+    }
+
+    /**
+     * Моделирование диапазона игр [from, to) одного размера поля.
+     */
+    private static final class Simulation extends RecursiveTask<Stats> {
+        private static final long serialVersionUID = 1L;
+
+        private final int side;
+        private final Supplier<MovePolicy> policy;
+        private final int maxMoves;
+        // каталог для записей игр либо null
+        private final Path record;
+        // таблица рекордов либо null
+        private final HighScores scores;
+        private final int from;
+        private final int to;
+        private final SplittableRandom random;
+
+        Simulation(int side, Supplier<MovePolicy> policy, int maxMoves, Path record, HighScores scores,
+                   int from, int to, SplittableRandom random) {
+            this.side = side;
+            this.policy = policy;
+            this.maxMoves = maxMoves;
+            this.record = record;
+            this.scores = scores;
+            this.from = from;
+            this.to = to;
+            this.random = random;
+        }
+
+        @Override
+        protected Stats compute() {
+            if ( to - from <= LEAF_GAMES ) {
+                return play();
+            }
+            int middle = (from + to) >>> 1;
+            Simulation right = new Simulation(side, policy, maxMoves, record, scores, middle, to,
+                    random.split());
+            right.fork();
+            Stats left = new Simulation(side, policy, maxMoves, record, scores, from, middle, random)
+                    .compute();
+            left.merge(right.join());
+            return left;
+        }
+
+        private Stats play() {
+            Stats stats = new Stats();
+            MovePolicy movePolicy = policy.get();
+            Game game = new Game(side, random);
+            if ( record != null ) {
+                game.setReplay(new Replay());
+            }
+            for (int i = from; i < to; i++) {
+                // у каждой игры своё начальное значение генератора, чтобы её можно было воспроизвести
+                game.start(random.nextLong());
+                while ( game.getMoves() < maxMoves && game.hasMove() ) {
+                    long move = movePolicy.choose(game, random);
+                    if ( move == MovePolicy.NO_MOVE ) {
+                        break;
+                    }
+                    game.turn(Moves.from(move), Moves.to(move));
+                }
+                stats.add(game.getPoints(), game.getMoves());
+                if ( scores != null ) {
+                    scores.add(side, game.getPoints(), game.getMoves());
+                }
+                if ( record != null ) {
+                    write(game.getReplay(), record.resolve(side + "-" + i + ".lnr"));
+                }
+            }
+            return stats;
+        }
+    }
+
+    private static void write(Replay replay, Path path) {
+        try {
+            replay.write(path);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot write replay " + path, e);
+        }
+    }
+
+    /**
+     * Статистика моделирования: количество игр и ходов, распределение очков.
+     */
+    private static final class Stats {
+        private long games;
+        private long moves;
+        private long points;
+        // количество игр по набранным очкам: histogram[очки]
+        private long[] histogram = new long[256];
+
+        void add(int score, int gameMoves) {
+            games++;
+            moves += gameMoves;
+            points += score;
+            if ( score >= histogram.length ) {
+                histogram = Arrays.copyOf(histogram, Math.max(score + 1, histogram.length * 2));
+            }
+            histogram[score]++;
+        }
+
+        void merge(Stats other) {
+            games += other.games;
+            moves += other.moves;
+            points += other.points;
+            if ( other.histogram.length > histogram.length ) {
+                histogram = Arrays.copyOf(histogram, other.histogram.length);
+            }
+            for (int i = 0; i < other.histogram.length; i++) {
+                histogram[i] += other.histogram[i];
+            }
+        }
+
+        /**
+         * @param fraction доля игр (от 0 до 1).
+         * @return наименьшее количество очков, которое набрали не менее fraction игр.
+         */
+        private int percentile(double fraction) {
+            long rank = Math.max(1, (long) Math.ceil(fraction * games));
+            long seen = 0;
+            for (int score = 0; score < histogram.length; score++) {
+                seen += histogram[score];
+                if ( seen >= rank ) {
+                    return score;
+                }
+            }
+            return histogram.length - 1;
+        }
+
+        String report(int side, long elapsedNanos) {
+            double seconds = elapsedNanos / 1e9;
+            return String.format(Locale.ROOT,
+                    "%2dx%-2d games=%d moves=%d time=%.2fs games/s=%.0f moves/s=%.0f moves/game=%.1f | "
+                            + "score min=%d mean=%.1f p50=%d p90=%d p99=%d max=%d",
+                    side, side, games, moves, seconds, games / seconds, moves / seconds,
+                    games == 0 ? 0.0 : (double) moves / games,
+                    percentile(0), games == 0 ? 0.0 : (double) points / games,
+                    percentile(0.5), percentile(0.9), percentile(0.99), percentile(1));
+        }
+    }
+}
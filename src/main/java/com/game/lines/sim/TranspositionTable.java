@@ -0,0 +1,73 @@
+package com.game.lines.sim;
+
+/**
+ * Таблица транспозиций: оценки позиций, уже вычисленные поиском, по хэшу Зобриста поля
+ * (см. {@link com.game.lines.model.Board#getHash()}).
+ * <p>
+ * Размер таблицы ограничен: позиция хранится в ячейке, определяемой хэшем, и вытесняет прежнюю позицию,
+ * если та вычислена на меньшую или равную глубину либо является другой позицией. Таблица разделяется между
+ * потоками: ячейки распределены по {@link #STRIPES} блокировкам, поэтому потоки, обращающиеся к разным
+ * ячейкам, как правило, не ждут друг друга.
+ */
+public final class TranspositionTable {
+    // количество блокировок (степень двойки)
+    private static final int STRIPES = 64;
+
+    private final long[] keys;
+    private final float[] values;
+    // глубина поиска оценки + 1; 0 - пустая ячейка
+    private final byte[] depths;
+    private final int mask;
+    private final Object[] locks = new Object[STRIPES];
+
+    /**
+     * @param capacity наибольшее количество позиций (округляется вверх до степени двойки).
+     */
+    public TranspositionTable(int capacity) {
+        int size = Integer.highestOneBit(Math.max(STRIPES, capacity - 1)) << 1;
+        keys = new long[size];
+        values = new float[size];
+        depths = new byte[size];
+        mask = size - 1;
+        for (int i = 0; i < STRIPES; i++) {
+            locks[i] = new Object();
+        }
+    }
+
+    /**
+     * @param hash  хэш позиции.
+     * @param depth требуемая глубина поиска.
+     * @return оценка позиции, вычисленная на глубину не меньше depth, либо {@link Float#NaN}.
+     */
+    public float get(long hash, int depth) {
+        int slot = slot(hash);
+        synchronized ( locks[slot & (STRIPES - 1)] ) {
+            if ( depths[slot] > depth && keys[slot] == hash ) {
+                return values[slot];
+            }
+        }
+        return Float.NaN;
+    }
+
+    /**
+     * Сохранение оценки позиции.
+     *
+     * @param hash  хэш позиции.
+     * @param depth глубина поиска, на которую вычислена оценка.
+     * @param value оценка.
+     */
+    public void put(long hash, int depth, float value) {
+        int slot = slot(hash);
+        synchronized ( locks[slot & (STRIPES - 1)] ) {
+            if ( keys[slot] != hash || depths[slot] <= depth + 1 ) {
+                keys[slot] = hash;
+                values[slot] = value;
+                depths[slot] = (byte) (depth + 1);
+            }
+        }
+    }
+
+    private int slot(long hash) {
+        return (int) (hash ^ (hash >>> 32)) & mask;
+    }
+}
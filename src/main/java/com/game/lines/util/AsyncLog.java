@@ -0,0 +1,217 @@
+package com.game.lines.util;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+import java.util.logging.Handler;
+import java.util.logging.Level;
+import java.util.logging.LogRecord;
+import java.util.logging.Logger;
+import java.util.logging.SimpleFormatter;
+import java.util.logging.StreamHandler;
+
+/**
+ * Асинхронная запись в журнал ({@link java.util.logging}) для EDT и потока движка.
+ * <p>
+ * Вызывающий поток только проверяет уровень журнала и, если сообщение будет записано, кладёт в кольцевой буфер
+ * ссылки на журнал, уровень и шаблон сообщения и числовой аргумент - без выделения памяти, построения строк
+ * и блокировок. Сообщения форматируются (шаблон в стиле {@link java.text.MessageFormat}, аргумент - {@code {0}})
+ * и передаются обработчикам журнала фоновым потоком. Если буфер заполнен, сообщение отбрасывается
+ * (вызывающий поток никогда не ждёт), а фоновый поток сообщает количество отброшенных сообщений.
+ * <p>
+ * При завершении программы обработчики журналов закрывает LogManager в собственном обработчике завершения,
+ * порядок выполнения которого не определён. Поэтому с начала завершения фоновый поток передаёт оставшиеся
+ * сообщения не журналам, а своему обработчику ({@link SimpleFormatter}, стандартный поток ошибок), и обработчик
+ * завершения ждёт их записи не дольше {@link #FLUSH_TIMEOUT} миллисекунд.
+ */
+public final class AsyncLog {
+    // размер кольцевого буфера (степень двойки)
+    static final int CAPACITY = 1 << 12;
+    private static final int MASK = CAPACITY - 1;
+    // признак сообщения без аргумента
+    private static final long NO_ARGUMENT = Long.MIN_VALUE;
+    // наибольшее время ожидания фонового потока без сообщений (в миллисекундах)
+    private static final long IDLE_WAIT = 100;
+    // время ожидания записи сообщений при завершении программы (в миллисекундах)
+    private static final long FLUSH_TIMEOUT = 500;
+
+    private static final Logger asyncLogger = Logger.getLogger(AsyncLog.class.getName());
+    // обработчик сообщений, записываемых после начала завершения программы
+    private static final Handler exitHandler = new StreamHandler(System.err, new SimpleFormatter());
+
+    // ячейки буфера; ячейка pos свободна для записи, если sequences[pos & MASK] == pos,
+    // и заполнена, если sequences[pos & MASK] == pos + 1
+    private static final Logger[] loggers = new Logger[CAPACITY];
+    private static final Level[] levels = new Level[CAPACITY];
+    private static final String[] messages = new String[CAPACITY];
+    private static final long[] arguments = new long[CAPACITY];
+    private static final AtomicLongArray sequences = new AtomicLongArray(CAPACITY);
+    // следующая позиция для записи (общая для всех потоков)
+    private static final AtomicLong tail = new AtomicLong();
+    // следующая позиция для чтения (используется только фоновым потоком)
+    private static long head;
+    private static final AtomicLong written = new AtomicLong();
+    private static final LongAdder dropped = new LongAdder();
+    private static final Thread writer;
+    private static volatile boolean waiting;
+    // true после начала завершения программы
+    private static volatile boolean exiting;
+
+    static {
+        for (int i = 0; i < CAPACITY; i++) {
+            sequences.set(i, i);
+        }
+        writer = new Thread(AsyncLog::run, "lines-log");
+        writer.setDaemon(true);
+        writer.start();
+        exitHandler.setLevel(Level.ALL);
+        Runtime.getRuntime().addShutdownHook(new Thread(AsyncLog::exit, "lines-log-flush"));
+    }
+
+    private AsyncLog() { }
+
+    public static void info(Logger logger, String message) {
+        log(logger, Level.INFO, message, NO_ARGUMENT);
+    }
+
+    public static void info(Logger logger, String message, long argument) {
+        log(logger, Level.INFO, message, argument);
+    }
+
+    public static void fine(Logger logger, String message, long argument) {
+        log(logger, Level.FINE, message, argument);
+    }
+
+    public static void warning(Logger logger, String message) {
+        log(logger, Level.WARNING, message, NO_ARGUMENT);
+    }
+
+    /**
+     * Запись сообщения в журнал фоновым потоком.
+     *
+     * @param message  шаблон сообщения (строковая константа: строка не копируется).
+     * @param argument значение {@code {0}} в шаблоне.
+     */
+    public static void log(Logger logger, Level level, String message, long argument) {
+        if ( !logger.isLoggable(level) ) {
+            return;
+        }
+        long position = tail.get();
+        while ( true ) {
+            long difference = sequences.get((int) position & MASK) - position;
+            if ( difference == 0 ) {
+                if ( tail.compareAndSet(position, position + 1) ) {
+                    break;
+                }
+                position = tail.get();
+            } else if ( difference < 0 ) {
+                // буфер заполнен
+                dropped.increment();
+                return;
+            } else {
+                position = tail.get();
+            }
+        }
+        int slot = (int) position & MASK;
+        loggers[slot] = logger;
+        levels[slot] = level;
+        messages[slot] = message;
+        arguments[slot] = argument;
+        sequences.set(slot, position + 1);
+        if ( waiting ) {
+            LockSupport.unpark(writer);
+        }
+    }
+
+    /**
+     * @return количество сообщений, отброшенных из-за заполненного буфера.
+     */
+    public static long getDropped() {
+        return dropped.sum();
+    }
+
+    /**
+     * Ожидание записи сообщений, переданных до вызова.
+     */
+    public static void flush(long timeoutMillis) {
+        long target = tail.get();
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeoutMillis);
+        while ( written.get() < target && System.nanoTime() < deadline ) {
+            LockSupport.unpark(writer);
+            LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(1));
+        }
+    }
+
+    /**
+     * Запись оставшихся сообщений при завершении программы собственным обработчиком.
+     */
+    private static void exit() {
+        exiting = true;
+        flush(FLUSH_TIMEOUT);
+        exitHandler.flush();
+    }
+
+    private static void run() {
+        long reported = 0;
+        while ( true ) {
+            if ( !drain() ) {
+                long lost = dropped.sum();
+                if ( lost > reported ) {
+                    LogRecord record = new LogRecord(Level.WARNING,
+                            (lost - reported) + " log records dropped: buffer is full");
+                    record.setLoggerName(asyncLogger.getName());
+                    publish(asyncLogger, record);
+                    reported = lost;
+                }
+                waiting = true;
+                if ( sequences.get((int) head & MASK) != head + 1 ) {
+                    LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(IDLE_WAIT));
+                }
+                waiting = false;
+            }
+        }
+    }
+
+    /**
+     * @return false, если буфер пуст.
+     */
+    private static boolean drain() {
+        boolean any = false;
+        while ( true ) {
+            int slot = (int) head & MASK;
+            if ( sequences.get(slot) != head + 1 ) {
+                return any;
+            }
+            Logger logger = loggers[slot];
+            LogRecord record = new LogRecord(levels[slot], messages[slot]);
+            if ( arguments[slot] != NO_ARGUMENT ) {
+                record.setParameters(new Object[] { arguments[slot] });
+            }
+            loggers[slot] = null;
+            levels[slot] = null;
+            messages[slot] = null;
+            sequences.set(slot, head + CAPACITY);
+            head++;
+            any = true;
+            record.setLoggerName(logger.getName());
+            record.setSourceClassName(logger.getName());
+            record.setSourceMethodName(null);
+            try {
+                publish(logger, record);
+            } catch (RuntimeException e) {
+                // ошибка обработчика не должна останавливать фоновый поток
+            }
+            written.incrementAndGet();
+        }
+    }
+
+    private static void publish(Logger logger, LogRecord record) {
+        if ( exiting ) {
+            exitHandler.publish(record);
+        } else {
+            logger.log(record);
+        }
+    }
+}
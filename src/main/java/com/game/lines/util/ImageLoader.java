@@ -0,0 +1,69 @@
+package com.game.lines.util;
+
+import javax.imageio.ImageIO;
+import java.awt.*;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.stream.IntStream;
+
+/**
+ * Класс ImageLoader выполняет параллельное декодирование и масштабирование изображений.
+ * Не имеет статического состояния, поэтому может вызываться из статического инициализатора
+ * {@link ResourceManager} без риска взаимной блокировки потоков пула при инициализации класса.
+ */
+final class ImageLoader {
+
+    private ImageLoader() { }
+
+    /**
+     * Параллельное чтение изображений из ресурсов.
+     *
+     * @param resources пути к ресурсам.
+     * @return декодированные изображения в порядке путей.
+     */
+    static BufferedImage[] read(String[] resources) {
+        BufferedImage[] images = new BufferedImage[resources.length];
+        IntStream.range(0, resources.length).parallel().forEach( i -> images[i] = read(resources[i]) );
+        return images;
+    }
+
+    /**
+     * Параллельное масштабирование изображений под каждую из заданных ширин.
+     *
+     * @param images исходные изображения.
+     * @param widths требуемые ширины.
+     * @return масштабированные изображения: [индекс ширины][индекс изображения].
+     */
+    static BufferedImage[][] scale(BufferedImage[] images, int[] widths) {
+        BufferedImage[][] scaled = new BufferedImage[widths.length][images.length];
+        IntStream.range(0, widths.length * images.length).parallel().forEach( i -> {
+            int w = i / images.length;
+            int image = i % images.length;
+            scaled[w][image] = scale(images[image], widths[w]);
+        });
+        return scaled;
+    }
+
+    private static BufferedImage read(String resource) {
+        try {
+            return ImageIO.read(ImageLoader.class.getResource(resource));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Масштабирование изображения с сохранением пропорций.
+     */
+    private static BufferedImage scale(BufferedImage image, int width) {
+        int height = Math.max(1, image.getHeight() * width / image.getWidth());
+        BufferedImage scaled = new BufferedImage(width, height, BufferedImage.TYPE_INT_ARGB);
+        Graphics2D graphics = scaled.createGraphics();
+        graphics.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BICUBIC);
+        graphics.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
+        graphics.drawImage(image, 0, 0, width, height, null);
+        graphics.dispose();
+        return scaled;
+    }
+}
@@ -0,0 +1,149 @@
+package com.game.lines.util;
+
+import java.util.Locale;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Гистограмма длительностей (в наносекундах) с логарифмическими интервалами: каждый интервал [2^k, 2^(k+1))
+ * делится на 2^{@link #SUB_BITS} равных частей, поэтому процентили оцениваются с погрешностью не более 12,5%
+ * при постоянном объёме памяти. Запись - несколько атомарных операций без выделения памяти и блокировок;
+ * записывать и читать можно из разных потоков.
+ */
+public final class LatencyHistogram {
+    // количество бит, делящих интервал [2^k, 2^(k+1)) на части
+    private static final int SUB_BITS = 3;
+    private static final int SUB_COUNT = 1 << SUB_BITS;
+    private static final int BUCKETS = 64 << SUB_BITS;
+
+    private final AtomicLongArray buckets = new AtomicLongArray(BUCKETS);
+    private final LongAdder count = new LongAdder();
+    private final LongAdder total = new LongAdder();
+    private final AtomicLong max = new AtomicLong();
+
+    /**
+     * @param nanos длительность в наносекундах.
+     */
+    public void record(long nanos) {
+        if ( nanos < 0 ) {
+            nanos = 0;
+        }
+        buckets.incrementAndGet(bucket(nanos));
+        count.increment();
+        total.add(nanos);
+        if ( nanos > max.get() ) {
+            max.accumulateAndGet(nanos, Math::max);
+        }
+    }
+
+    public void reset() {
+        for (int i = 0; i < BUCKETS; i++) {
+            buckets.set(i, 0);
+        }
+        count.reset();
+        total.reset();
+        max.set(0);
+    }
+
+    /**
+     * @return сводка гистограммы на текущий момент (записи, сделанные во время чтения, могут учитываться частично).
+     */
+    public Snapshot snapshot() {
+        long[] copy = new long[BUCKETS];
+        long sum = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            copy[i] = buckets.get(i);
+            sum += copy[i];
+        }
+        long maxNanos = max.get();
+        return new Snapshot(sum, sum == 0 ? 0 : (double) total.sum() / count.sum(),
+                percentile(copy, sum, 0.5, maxNanos), percentile(copy, sum, 0.9, maxNanos),
+                percentile(copy, sum, 0.99, maxNanos), maxNanos);
+    }
+
+    private static int bucket(long nanos) {
+        if ( nanos < SUB_COUNT ) {
+            return (int) nanos;
+        }
+        int power = 63 - Long.numberOfLeadingZeros(nanos);
+        int sub = (int) (nanos >>> (power - SUB_BITS)) & (SUB_COUNT - 1);
+        return ((power - SUB_BITS + 1) << SUB_BITS) + sub;
+    }
+
+    /**
+     * @return наибольшее значение, попадающее в интервал.
+     */
+    private static long upperBound(int bucket) {
+        if ( bucket < SUB_COUNT ) {
+            return bucket;
+        }
+        int power = (bucket >>> SUB_BITS) + SUB_BITS - 1;
+        int sub = bucket & (SUB_COUNT - 1);
+        long width = 1L << (power - SUB_BITS);
+        return ((long) (SUB_COUNT + sub) << (power - SUB_BITS)) + width - 1;
+    }
+
+    private static long percentile(long[] buckets, long count, double fraction, long max) {
+        long rank = Math.max(1, (long) Math.ceil(fraction * count));
+        long seen = 0;
+        for (int i = 0; i < buckets.length; i++) {
+            seen += buckets[i];
+            if ( seen >= rank ) {
+                return Math.min(upperBound(i), max);
+            }
+        }
+        return max;
+    }
+
+    /**
+     * Сводка гистограммы; длительности в микросекундах.
+     */
+    public static final class Snapshot {
+        private final long count;
+        private final double mean;
+        private final long p50;
+        private final long p90;
+        private final long p99;
+        private final long max;
+
+        Snapshot(long count, double mean, long p50, long p90, long p99, long max) {
+            this.count = count;
+            this.mean = mean;
+            this.p50 = p50;
+            this.p90 = p90;
+            this.p99 = p99;
+            this.max = max;
+        }
+
+        public long getCount() {
+            return count;
+        }
+
+        public double getMeanMicros() {
+            return mean / 1000;
+        }
+
+        public double getP50Micros() {
+            return p50 / 1000.0;
+        }
+
+        public double getP90Micros() {
+            return p90 / 1000.0;
+        }
+
+        public double getP99Micros() {
+            return p99 / 1000.0;
+        }
+
+        public double getMaxMicros() {
+            return max / 1000.0;
+        }
+
+        @Override
+        public String toString() {
+            return String.format(Locale.ROOT, "count=%d mean=%.1fus p50=%.1fus p90=%.1fus p99=%.1fus max=%.1fus",
+                    count, getMeanMicros(), getP50Micros(), getP90Micros(), getP99Micros(), getMaxMicros());
+        }
+    }
+}
@@ -4,14 +4,14 @@ import com.game.lines.Application;
 
 import javax.swing.*;
 import java.awt.*;
+import java.awt.image.BufferedImage;
 import java.net.URL;
-import java.util.Arrays;
-import java.util.HashMap;
-import java.util.List;
-import java.util.Map;
 
 /**
  * Класс ResourceManager управляет доступом к ресурсам проекта.
+ * Изображения шаров декодируются один раз (параллельно, см. {@link ImageLoader}) при загрузке класса
+ * и хранятся в кэше, индексированном кодом цвета поля. Для каждого размера поля из {@link Application#GRID_SIZES}
+ * заранее подготавливаются масштабированные варианты изображений; поле рисует их напрямую, без {@link ImageIcon}.
  *
  * @author Eugene Ivanov on 01.04.18
  */
@@ -30,8 +30,19 @@ public class ResourceManager {
     private static final String SUFFIX;
     // URL иконки окна игры
     private static final URL IMAGE_ICON_URL;
-    // массив изображений шаров, используемых в игре
-    public static final Object[] BALLS;
+    // высота панелей окна над и под полем, включая строку кнопок игры (в пикселях)
+    private static final int PANELS_HEIGHT;
+    // отступ от изображения шара до границ ячейки (в пикселях)
+    private static final int BALL_MARGIN;
+    // названия цветов шаров; порядок соответствует кодам цветов поля (код цвета = индекс + 1)
+    public static final String[] COLORS =
+            {"black", "blue", "gray", "green", "pink", "purple", "red", "sapphire", "yellow"};
+    // декодированные изображения шаров в исходном размере (исходные данные для масштабирования)
+    private static final BufferedImage[] BALL_IMAGES;
+    // размеры изображений шаров для размеров поля из Application.GRID_SIZES
+    private static final int[] BALL_SIZES;
+    // масштабированные изображения шаров: [индекс размера из BALL_SIZES][индекс цвета]
+    private static final BufferedImage[][] SCALED_IMAGES;
 
     static {
         BALLS_FOLDER = "/images/balls/";
@@ -39,8 +50,22 @@ public class ResourceManager {
         ICON_NAME = "bananas";
         FILE_TYPE = ".png";
         SUFFIX  = "-ball";
+        PANELS_HEIGHT = 135;
+        BALL_MARGIN = 4;
         IMAGE_ICON_URL = Application.class.getResource(ICON_FOLDER + ICON_NAME + FILE_TYPE);
-        BALLS = ballsMap().values().toArray();
+
+        String[] resources = new String[COLORS.length];
+        for (int i = 0; i < COLORS.length; i++) {
+            resources[i] = BALLS_FOLDER + COLORS[i] + SUFFIX + FILE_TYPE;
+        }
+        BALL_IMAGES = ImageLoader.read(resources);
+
+        BALL_SIZES = new int[Application.GRID_SIZES.length];
+        for (int i = 0; i < BALL_SIZES.length; i++) {
+            int[] size = Application.GRID_SIZES[i];
+            BALL_SIZES[i] = ballSize(tileSize(size[0], size[1], size[2]));
+        }
+        SCALED_IMAGES = ImageLoader.scale(BALL_IMAGES, BALL_SIZES);
     }
 
     public static Image getImageIcon() {
@@ -48,22 +73,38 @@ public class ResourceManager {
     }
 
     /**
-     * key - название цвета;
-     * value - изображение шара;
+     * Размер ячейки поля, при котором поле занимает окно целиком (за вычетом панелей над и под полем).
      *
-     * @return map изображений шаров по цветам.
+     * @param frameWidth  ширина окна.
+     * @param frameHeight высота окна.
+     * @param side        длина стороны поля.
+     * @return размер ячейки в пикселях.
      */
-    public static Map<String, ImageIcon> ballsMap() {
-        Map<String, ImageIcon> imageMap = new HashMap<>();
-        List<String> colors = Arrays.asList("black", "blue", "gray", "green", "pink", "purple", "red", "sapphire", "yellow");
-        for (String color : colors) {
-            ImageIcon image = getImageByColor(color);
-            imageMap.put(color, image);
-        }
-        return imageMap;
+    public static int tileSize(int frameWidth, int frameHeight, int side) {
+        return Math.min(frameWidth, frameHeight - PANELS_HEIGHT) / side;
     }
 
-    private static ImageIcon getImageByColor(String color) {
-        return new ImageIcon(Application.class.getResource(BALLS_FOLDER + color + SUFFIX + FILE_TYPE));
+    /**
+     * @param tile размер ячейки в пикселях.
+     * @return размер изображения шара в ячейке заданного размера.
+     */
+    public static int ballSize(int tile) {
+        return Math.max(1, tile - BALL_MARGIN);
+    }
+
+    /**
+     * Изображения шаров заданного размера. Для размеров полей из {@link Application#GRID_SIZES} возвращаются
+     * изображения, подготовленные при загрузке класса, для остальных размеров выполняется масштабирование.
+     *
+     * @param size требуемая ширина изображения в пикселях.
+     * @return изображения шаров, индексированные как {@link #COLORS}.
+     */
+    public static BufferedImage[] getBallImages(int size) {
+        for (int i = 0; i < BALL_SIZES.length; i++) {
+            if ( BALL_SIZES[i] == size ) {
+                return SCALED_IMAGES[i].clone();
+            }
+        }
+        return ImageLoader.scale(BALL_IMAGES, new int[] { size })[0];
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,80 @@
+package com.game.lines.engine;
+
+import org.junit.After;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * Игровая сессия ({@link GameSession}): ошибка действия и переполнение очереди завершают только свои действия,
+ * следующие действия сессии выполняются.
+ */
+public class GameSessionTest {
+    private final SessionEngine engine = new SessionEngine(2);
+
+    @After
+    public void close() {
+        engine.close();
+    }
+
+    @Test
+    public void sessionRunsAfterFailedAction() throws Exception {
+        GameSession session = engine.create(9);
+        session.newGame(1).get(5, TimeUnit.SECONDS);
+        CompletableFuture<Object> error = session.submit(game -> {
+            throw new AssertionError("action failure");
+        });
+        CompletableFuture<TurnResult> invalid = session.click(-1);
+        TurnResult undo = session.undo().get(5, TimeUnit.SECONDS);
+        assertEquals(TurnResult.Status.INVALID, undo.getStatus());
+        assertTrue(failure(error) instanceof AssertionError);
+        assertTrue(failure(invalid) instanceof IllegalArgumentException);
+        assertEquals(9 * 9, session.snapshot().get(5, TimeUnit.SECONDS).length);
+    }
+
+    @Test
+    public void sessionRunsAfterRejectedActions() throws Exception {
+        GameSession session = engine.create(9);
+        session.newGame(1).get(5, TimeUnit.SECONDS);
+        // первое действие держит очередь сессии, пока остальные не поставлены
+        CompletableFuture<Void> release = new CompletableFuture<>();
+        session.submit(game -> release.join());
+        List<CompletableFuture<byte[]>> snapshots = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            snapshots.add(session.snapshot());
+        }
+        release.complete(null);
+        int rejected = 0;
+        for (CompletableFuture<byte[]> snapshot : snapshots) {
+            try {
+                assertEquals(9 * 9, snapshot.get(5, TimeUnit.SECONDS).length);
+            } catch (ExecutionException e) {
+                assertTrue(e.getCause() instanceof RejectedExecutionException);
+                rejected++;
+            }
+        }
+        assertTrue(rejected > 0);
+        assertFalse(session.undo().get(5, TimeUnit.SECONDS).isGameOver());
+    }
+
+    private static Throwable failure(CompletableFuture<?> future) throws InterruptedException, TimeoutException {
+        try {
+            future.get(5, TimeUnit.SECONDS);
+        } catch (ExecutionException e) {
+            return e.getCause();
+        }
+        fail("the action must fail");
+        return null;
+    }
+}
@@ -0,0 +1,112 @@
+package com.game.lines.engine;
+
+import org.junit.Test;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+
+/**
+ * Очередь задач сессии ({@link SerialExecutor}): задачи выполняются по одной в порядке поступления,
+ * и очередь продолжает работать после ошибки задачи, переполнения и отказа пула потоков.
+ */
+public class SerialExecutorTest {
+
+    @Test
+    public void queueRunsAfterFailedTask() {
+        ManualPool pool = new ManualPool();
+        SerialExecutor executor = new SerialExecutor(pool, 64);
+        List<Integer> done = new ArrayList<>();
+        executor.execute(() -> done.add(1));
+        executor.execute(() -> {
+            throw new AssertionError("task failure");
+        });
+        executor.execute(() -> {
+            throw new IllegalStateException("task failure");
+        });
+        executor.execute(() -> done.add(2));
+        pool.runAll();
+        executor.execute(() -> done.add(3));
+        pool.runAll();
+        assertEquals(Arrays.asList(1, 2, 3), done);
+    }
+
+    @Test
+    public void queueRunsAfterOverflow() {
+        ManualPool pool = new ManualPool();
+        SerialExecutor executor = new SerialExecutor(pool, 40);
+        List<Integer> done = new ArrayList<>();
+        for (int i = 0; i < 40; i++) {
+            int task = i;
+            executor.execute(() -> done.add(task));
+        }
+        try {
+            executor.execute(() -> done.add(-1));
+            fail("the 41st pending task must be rejected");
+        } catch (RejectedExecutionException expected) {
+            // очередь заполнена
+        }
+        // задачи выполняются пакетами, между пакетами сессия возвращается в очередь пула
+        assertEquals(3, pool.runAll());
+        executor.execute(() -> done.add(40));
+        pool.runAll();
+        assertEquals(41, done.size());
+        for (int i = 0; i < done.size(); i++) {
+            assertEquals(i, (int) done.get(i));
+        }
+    }
+
+    @Test
+    public void queueRunsAfterPoolRejection() {
+        ManualPool pool = new ManualPool();
+        SerialExecutor executor = new SerialExecutor(pool, 1);
+        List<Integer> done = new ArrayList<>();
+        pool.rejecting = true;
+        try {
+            executor.execute(() -> done.add(-1));
+            fail("the task must be rejected with the pool");
+        } catch (RejectedExecutionException expected) {
+            // отклонённая задача не занимает место в очереди
+        }
+        pool.rejecting = false;
+        executor.execute(() -> done.add(1));
+        pool.runAll();
+        assertEquals(Arrays.asList(1), done);
+    }
+
+    /**
+     * Пул, задачи которого выполняет тест.
+     */
+    private static final class ManualPool implements Executor {
+        private final Queue<Runnable> tasks = new ArrayDeque<>();
+        private boolean rejecting;
+
+        @Override
+        public void execute(Runnable task) {
+            if ( rejecting ) {
+                throw new RejectedExecutionException("pool is shut down");
+            }
+            tasks.add(task);
+        }
+
+        /**
+         * @return количество выполненных задач пула.
+         */
+        int runAll() {
+            int count = 0;
+            Runnable task;
+            while ( (task = tasks.poll()) != null ) {
+                task.run();
+                count++;
+            }
+            return count;
+        }
+    }
+}
@@ -0,0 +1,123 @@
+package com.game.lines.logic;
+
+import com.game.lines.model.Board;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.SplittableRandom;
+
+/**
+ * Случайные позиции для тестов.
+ */
+final class Boards {
+    private Boards() { }
+
+    /**
+     * Заполнение поля шарами первых colors цветов на долю fill ячеек (линии не удаляются).
+     */
+    static void fill(Board board, SplittableRandom random, double fill, int colors) {
+        board.clear();
+        for (int i = 0; i < board.size(); i++) {
+            if ( random.nextDouble() < fill ) {
+                board.setColor(i, (byte) (1 + random.nextInt(colors)));
+            }
+        }
+    }
+
+    /**
+     * Размещение не более count шаров в случайных пустых ячейках.
+     *
+     * @return индексы заполненных ячеек.
+     */
+    static int[] place(Board board, SplittableRandom random, int count, int colors) {
+        count = Math.min(count, board.getEmptyCount());
+        int[] cells = new int[count];
+        for (int i = 0; i < count; i++) {
+            cells[i] = board.getEmptyCell(random.nextInt(board.getEmptyCount()));
+            board.setColor(cells[i], (byte) (1 + random.nextInt(colors)));
+        }
+        return cells;
+    }
+
+    /**
+     * Очистка ячеек всех линий.
+     *
+     * @return true, если была очищена хотя бы одна ячейка.
+     */
+    static boolean clearAll(Board board, List<int[]> lines) {
+        for (int[] line : lines) {
+            for (int cell : line) {
+                board.setColor(cell, Board.EMPTY);
+            }
+        }
+        return !lines.isEmpty();
+    }
+
+    /**
+     * Расстояния от ячейки from по пустым ячейкам (поиск в ширину по координатам, без таблиц Topology).
+     *
+     * @return расстояние до каждой ячейки либо -1, если ячейка недостижима; для from - 0.
+     */
+    static int[] distances(Board board, int from) {
+        int side = board.getSide();
+        int[] distance = new int[board.size()];
+        Arrays.fill(distance, -1);
+        int[] queue = new int[board.size()];
+        int head = 0;
+        int tail = 0;
+        distance[from] = 0;
+        queue[tail++] = from;
+        while ( head < tail ) {
+            int node = queue[head++];
+            int x = node % side;
+            int y = node / side;
+            int[][] next = { {x - 1, y}, {x + 1, y}, {x, y - 1}, {x, y + 1} };
+            for (int[] cell : next) {
+                if ( cell[0] < 0 || cell[0] >= side || cell[1] < 0 || cell[1] >= side ) {
+                    continue;
+                }
+                int index = cell[1] * side + cell[0];
+                if ( distance[index] < 0 && board.isEmpty(index) ) {
+                    distance[index] = distance[node] + 1;
+                    queue[tail++] = index;
+                }
+            }
+        }
+        return distance;
+    }
+
+    /**
+     * Состояние игры для сравнения: цвета ячеек и счётчики.
+     */
+    static String state(Game game) {
+        Board board = game.getBoard();
+        byte[] colors = new byte[board.size()];
+        for (int i = 0; i < colors.length; i++) {
+            colors[i] = board.getColor(i);
+        }
+        return "points=" + game.getPoints() + " balls=" + game.getBalls() + " moves=" + game.getMoves()
+                + " hash=" + Long.toHexString(board.getHash()) + " " + Arrays.toString(colors);
+    }
+
+    /**
+     * Случайный ход игры либо null, если ходов нет.
+     *
+     * @return пара {from, to}.
+     */
+    static int[] randomMove(Game game, SplittableRandom random) {
+        Board board = game.getBoard();
+        if ( !game.hasMove() ) {
+            return null;
+        }
+        while ( true ) {
+            int from = random.nextInt(board.size());
+            if ( board.isEmpty(from) || board.getEmptyCount() == 0 ) {
+                continue;
+            }
+            int to = board.getEmptyCell(random.nextInt(board.getEmptyCount()));
+            if ( game.canMove(from, to) ) {
+                return new int[] { from, to };
+            }
+        }
+    }
+}
@@ -0,0 +1,69 @@
+package com.game.lines.logic;
+
+import com.game.lines.model.Board;
+import org.junit.Test;
+
+import java.util.SplittableRandom;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Сравнение областей пустых ячеек ({@link EmptyRegions}) с поиском в ширину по координатам на случайных полях,
+ * в том числе после изменения отдельных ячеек (ленивое перестроение).
+ */
+public class EmptyRegionsTest {
+    private static final int[] SIDES = { 5, 7, 9, 12, 30 };
+    private static final int ROUNDS = 1000;
+    // проверяемых пар ячеек на одно поле
+    private static final int PAIRS = 20;
+
+    @Test
+    public void connectivityMatchesBreadthFirstSearch() {
+        SplittableRandom random = new SplittableRandom(5);
+        for (int side : SIDES) {
+            Board board = new Board(side);
+            EmptyRegions regions = new EmptyRegions(board);
+            Boards.fill(board, random, 0.5, Board.COLORS);
+            for (int round = 0; round < ROUNDS; round++) {
+                if ( round % 10 == 0 ) {
+                    Boards.fill(board, random, random.nextDouble(), Board.COLORS);
+                } else {
+                    // отдельные изменения ячеек, как при ходе
+                    int index = random.nextInt(board.size());
+                    board.setColor(index, board.isEmpty(index) ? (byte) 1 : Board.EMPTY);
+                }
+                assertEquals("side " + side + ", round " + round, hasMove(board), regions.hasMove());
+                for (int pair = 0; pair < PAIRS; pair++) {
+                    int from = random.nextInt(board.size());
+                    int to = random.nextInt(board.size());
+                    int[] distance = Boards.distances(board, from);
+                    boolean expected = from != to && !board.isEmpty(from) && board.isEmpty(to) && distance[to] > 0;
+                    assertEquals(expected, regions.connected(from, to));
+                    if ( board.isEmpty(from) && board.isEmpty(to) ) {
+                        assertEquals(distance[to] >= 0, regions.region(from) == regions.region(to));
+                    } else if ( !board.isEmpty(from) ) {
+                        assertEquals(-1, regions.region(from));
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Ход существует, если хотя бы один шар граничит с пустой ячейкой.
+     */
+    private static boolean hasMove(Board board) {
+        for (int i = 0; i < board.size(); i++) {
+            if ( board.isEmpty(i) ) {
+                continue;
+            }
+            int[] distance = Boards.distances(board, i);
+            for (int d : distance) {
+                if ( d > 0 ) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+}
@@ -0,0 +1,107 @@
+package com.game.lines.logic;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Таблица рекордов ({@link HighScores}): места результатов совпадают с подсчётом перебором, в том числе после
+ * повторного открытия файла; повреждённые и оборванные записи при чтении пропускаются.
+ */
+public class HighScoresTest {
+    private static final int[] SIDES = { 9, 12 };
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void rankMatchesBruteForce() {
+        Path path = folder.getRoot().toPath().resolve("scores.bin");
+        SplittableRandom random = new SplittableRandom(11);
+        List<List<Integer>> results = new ArrayList<>();
+        try (HighScores scores = new HighScores(path)) {
+            for (int side : SIDES) {
+                List<Integer> points = new ArrayList<>();
+                for (int i = 0; i < 500; i++) {
+                    // редкие большие результаты заставляют дерево расти
+                    int value = random.nextInt(20) == 0 ? random.nextInt(100000) : random.nextInt(300);
+                    assertEquals(1 + countAbove(points, value), scores.add(side, value, i));
+                    points.add(value);
+                }
+                results.add(points);
+            }
+        }
+        try (HighScores scores = new HighScores(path)) {
+            check(scores, results);
+        }
+    }
+
+    @Test
+    public void damagedRecordsAreSkipped() throws IOException {
+        Path path = folder.getRoot().toPath().resolve("scores.bin");
+        try (HighScores scores = new HighScores(path)) {
+            for (int i = 0; i < 10; i++) {
+                scores.add(SIDES[0], 10 * i, i);
+            }
+        }
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.WRITE)) {
+            // отрицательные очки во второй записи и неизвестный размер поля в третьей (контрольные суммы
+            // не совпадают), оборванная запись в конце файла
+            channel.write(ByteBuffer.allocate(4).putInt(0, -1), 4 + 24 + 4);
+            channel.write(ByteBuffer.allocate(4).putInt(0, Integer.MAX_VALUE), 4 + 2 * 24);
+            channel.write(ByteBuffer.allocate(7), channel.size());
+        }
+        try (HighScores scores = new HighScores(path)) {
+            assertEquals(8, scores.count(SIDES[0]));
+            assertEquals(90, scores.top(SIDES[0]).get(0).getPoints());
+            assertEquals(2, scores.rank(SIDES[0], 85));
+            // новые записи дописываются после отброшенного обрывка и читаются
+            scores.add(SIDES[0], 95, 1);
+        }
+        try (HighScores scores = new HighScores(path)) {
+            assertEquals(9, scores.count(SIDES[0]));
+            assertEquals(95, scores.top(SIDES[0]).get(0).getPoints());
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void negativePointsAreRejected() {
+        try (HighScores scores = new HighScores(folder.getRoot().toPath().resolve("scores.bin"))) {
+            scores.add(SIDES[0], -1, 0);
+        }
+    }
+
+    private static void check(HighScores scores, List<List<Integer>> results) {
+        for (int s = 0; s < SIDES.length; s++) {
+            List<Integer> points = results.get(s);
+            assertEquals(points.size(), scores.count(SIDES[s]));
+            for (int value : new int[] { 0, 1, 150, 299, 300, 50000, HighScores.MAX_POINTS - 1 }) {
+                assertEquals("side " + SIDES[s] + ", points " + value, 1 + countAbove(points, value),
+                        scores.rank(SIDES[s], value));
+            }
+            int best = points.stream().mapToInt(Integer::intValue).max().getAsInt();
+            assertEquals(best, scores.top(SIDES[s]).get(0).getPoints());
+        }
+    }
+
+    private static int countAbove(List<Integer> points, int value) {
+        int count = 0;
+        for (int point : points) {
+            if ( point > value ) {
+                count++;
+            }
+        }
+        return count;
+    }
+}
@@ -0,0 +1,161 @@
+package com.game.lines.logic;
+
+import com.game.lines.model.Board;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.TreeSet;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Сравнение поиска линий вокруг изменившихся ячеек ({@link LineDetector}) с полным просмотром поля
+ * на случайных позициях.
+ */
+public class LineDetectorTest {
+    // направления полного просмотра задаются здесь, независимо от таблиц Topology
+    private static final int[][] DIRECTIONS = { {1, 0}, {0, 1}, {1, 1}, {1, -1} };
+    private static final int[] SIDES = { 5, 7, 9, 12, 17 };
+    private static final int ROUNDS = 3000;
+
+    @Test
+    public void searchFindsTheSameLinesAsFullScan() {
+        SplittableRandom random = new SplittableRandom(2);
+        for (int side : SIDES) {
+            Board board = new Board(side);
+            LineDetector detector = new LineDetector(board);
+            for (int round = 0; round < ROUNDS; round++) {
+                // перед ходом на поле нет линий: случайное поле очищается полным просмотром
+                Boards.fill(board, random, 0.3 + 0.6 * random.nextDouble(), 2 + random.nextInt(3));
+                while ( Boards.clearAll(board, fullScan(board)) ) {
+                    continue;
+                }
+                int[] changed = Boards.place(board, random, 1 + random.nextInt(5), 3);
+                List<int[]> expected = fullScan(board);
+
+                int lines = detector.search(changed, changed.length);
+                assertEquals("lines, side " + side + ", round " + round, expected.size(), lines);
+                int[] lengths = new int[lines];
+                for (int line = 0; line < lines; line++) {
+                    lengths[line] = detector.getLineLength(line);
+                }
+                int[] expectedLengths = new int[expected.size()];
+                TreeSet<Integer> expectedCells = new TreeSet<>();
+                for (int line = 0; line < expected.size(); line++) {
+                    expectedLengths[line] = expected.get(line).length;
+                    for (int cell : expected.get(line)) {
+                        expectedCells.add(cell);
+                    }
+                }
+                Arrays.sort(lengths);
+                Arrays.sort(expectedLengths);
+                assertEquals(Arrays.toString(expectedLengths), Arrays.toString(lengths));
+                TreeSet<Integer> cleared = new TreeSet<>();
+                for (int i = 0; i < detector.getClearedCount(); i++) {
+                    cleared.add(detector.getCleared()[i]);
+                }
+                assertEquals(detector.getClearedCount(), cleared.size());
+                assertEquals(expectedCells, cleared);
+            }
+        }
+    }
+
+    @Test
+    public void longestLineMatchesFullScan() {
+        SplittableRandom random = new SplittableRandom(3);
+        for (int side : SIDES) {
+            Board board = new Board(side);
+            LineDetector detector = new LineDetector(board);
+            for (int round = 0; round < ROUNDS; round++) {
+                Boards.fill(board, random, random.nextDouble(), 3);
+                int index = random.nextInt(board.size());
+                int ignored = random.nextInt(board.size());
+                byte color = (byte) (1 + random.nextInt(3));
+                assertEquals(longestLine(board, index, color, ignored), detector.longestLine(index, color, ignored));
+            }
+        }
+    }
+
+    /**
+     * Все линии поля: в каждом направлении от каждой ячейки, предыдущая ячейка которой другого цвета.
+     */
+    static List<int[]> fullScan(Board board) {
+        int side = board.getSide();
+        List<int[]> lines = new ArrayList<>();
+        for (int[] direction : DIRECTIONS) {
+            int dx = direction[0];
+            int dy = direction[1];
+            for (int y = 0; y < side; y++) {
+                for (int x = 0; x < side; x++) {
+                    byte color = board.getColor(y * side + x);
+                    if ( color == Board.EMPTY || colorAt(board, x - dx, y - dy) == color ) {
+                        continue;
+                    }
+                    int length = 0;
+                    while ( colorAt(board, x + length * dx, y + length * dy) == color ) {
+                        length++;
+                    }
+                    if ( length >= LineDetector.LINE_LENGTH ) {
+                        int[] cells = new int[length];
+                        for (int i = 0; i < length; i++) {
+                            cells[i] = (y + i * dy) * side + x + i * dx;
+                        }
+                        lines.add(cells);
+                    }
+                }
+            }
+        }
+        return lines;
+    }
+
+    /**
+     * Самая длинная линия цвета color через ячейку index без учёта ячейки ignored; направления,
+     * в которых поле короче линии, не учитываются.
+     */
+    private static int longestLine(Board board, int index, byte color, int ignored) {
+        int side = board.getSide();
+        int x = index % side;
+        int y = index / side;
+        int longest = 1;
+        for (int[] direction : DIRECTIONS) {
+            int dx = direction[0];
+            int dy = direction[1];
+            int room = 1;
+            while ( inside(side, x - room * dx, y - room * dy) ) {
+                room++;
+            }
+            for (int i = 1; inside(side, x + i * dx, y + i * dy); i++) {
+                room++;
+            }
+            if ( room < LineDetector.LINE_LENGTH ) {
+                continue;
+            }
+            int length = 1;
+            for (int i = 1; matches(board, x - i * dx, y - i * dy, color, ignored); i++) {
+                length++;
+            }
+            for (int i = 1; matches(board, x + i * dx, y + i * dy, color, ignored); i++) {
+                length++;
+            }
+            longest = Math.max(longest, length);
+        }
+        return longest;
+    }
+
+    private static boolean matches(Board board, int x, int y, byte color, int ignored) {
+        int side = board.getSide();
+        return inside(side, x, y) && y * side + x != ignored && board.getColor(y * side + x) == color;
+    }
+
+    private static byte colorAt(Board board, int x, int y) {
+        int side = board.getSide();
+        return inside(side, x, y) ? board.getColor(y * side + x) : Board.EMPTY;
+    }
+
+    private static boolean inside(int side, int x, int y) {
+        return x >= 0 && x < side && y >= 0 && y < side;
+    }
+}
@@ -0,0 +1,128 @@
+package com.game.lines.logic;
+
+import com.game.lines.model.Board;
+import org.junit.After;
+import org.junit.Test;
+
+import java.util.HashSet;
+import java.util.Set;
+import java.util.SplittableRandom;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Оценка ходов ({@link MoveEvaluator}) на случайных играх: перебираются все возможные ходы (сравнение с поиском
+ * в ширину по координатам), ход, удаляющий линию, выбирается всегда, когда он есть, а оценка в пуле потоков
+ * и оценка в одном потоке дают один и тот же ход.
+ */
+public class MoveEvaluatorTest {
+    private static final int GAMES = 10;
+    // количество ходов случайной игры и шаг, с которым проверяются позиции
+    private static final int TURNS = 200;
+    private static final int STEP = 3;
+
+    private final ForkJoinPool pool = new ForkJoinPool(4);
+
+    @After
+    public void close() {
+        pool.shutdown();
+    }
+
+    @Test
+    public void everyMoveIsEvaluated() {
+        MoveEvaluator evaluator = new MoveEvaluator(null);
+        play(new int[] { 7, 9 }, 5, (game, position) -> {
+            Set<Long> expected = legalMoves(game.getBoard());
+            long[] moves = new long[expected.size() + 1];
+            int count = evaluator.bestMoves(game, moves);
+            Set<Long> found = new HashSet<>();
+            for (int i = 0; i < count; i++) {
+                found.add(moves[i]);
+            }
+            assertEquals(position, expected, found);
+            assertEquals(position, count, found.size());
+        });
+    }
+
+    @Test
+    public void clearingMoveIsPreferred() {
+        MoveEvaluator evaluator = new MoveEvaluator(null);
+        play(new int[] { 7, 9, 12 }, 6, (game, position) -> {
+            long best = evaluator.best(game);
+            assertTrue(position, game.canMove(Moves.from(best), Moves.to(best)));
+            boolean clearing = false;
+            for (long legal : legalMoves(game.getBoard())) {
+                clearing |= line(game, legal) >= LineDetector.LINE_LENGTH;
+            }
+            assertEquals(position, clearing, line(game, best) >= LineDetector.LINE_LENGTH);
+        });
+    }
+
+    @Test
+    public void parallelSearchMatchesSequential() {
+        MoveEvaluator parallel = new MoveEvaluator(pool);
+        MoveEvaluator sequential = new MoveEvaluator(null);
+        long[] top = new long[1];
+        play(new int[] { 9, 12, 20 }, 7, (game, position) -> {
+            long best = parallel.best(game);
+            assertEquals(position, sequential.best(game), best);
+            // повторный вызов для неизменного поля возвращает сохранённый ход
+            assertEquals(position, best, parallel.best(game));
+            assertEquals(position, 1, sequential.bestMoves(game, top));
+            assertEquals(position, best, top[0]);
+        });
+    }
+
+    /**
+     * Случайные игры: проверка выполняется для каждой STEP-й позиции, в которой есть возможный ход.
+     */
+    private static void play(int[] sides, long seed, Check check) {
+        SplittableRandom random = new SplittableRandom(seed);
+        for (int side : sides) {
+            for (int g = 0; g < GAMES; g++) {
+                Game game = new Game(side, random.split());
+                game.start(random.nextLong());
+                int[] move;
+                for (int turn = 0; turn < TURNS && (move = Boards.randomMove(game, random)) != null; turn++) {
+                    if ( turn % STEP == 0 ) {
+                        check.accept(game, "side " + side + ", game " + g + ", turn " + turn);
+                    }
+                    game.turn(move[0], move[1]);
+                }
+            }
+        }
+    }
+
+    /**
+     * @return все возможные ходы: шар и пустая ячейка, достижимая из его ячейки (поиск в ширину по координатам).
+     */
+    private static Set<Long> legalMoves(Board board) {
+        Set<Long> moves = new HashSet<>();
+        for (int from = 0; from < board.size(); from++) {
+            if ( board.isEmpty(from) ) {
+                continue;
+            }
+            int[] distance = Boards.distances(board, from);
+            for (int to = 0; to < board.size(); to++) {
+                if ( distance[to] > 0 ) {
+                    moves.add(Moves.move(from, to));
+                }
+            }
+        }
+        return moves;
+    }
+
+    /**
+     * @return длина линии, которую шар образует в целевой ячейке хода.
+     */
+    private static int line(Game game, long move) {
+        int from = Moves.from(move);
+        return game.longestLine(Moves.to(move), game.getBoard().getColor(from), from);
+    }
+
+    private interface Check {
+        void accept(Game game, String position);
+    }
+}
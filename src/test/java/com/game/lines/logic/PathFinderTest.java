@@ -0,0 +1,47 @@
+package com.game.lines.logic;
+
+import com.game.lines.model.Board;
+import org.junit.Test;
+
+import java.util.SplittableRandom;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Сравнение поиска пути ({@link PathFinder}) с поиском в ширину по координатам на случайных полях:
+ * ход возможен в тех же случаях, а найденный путь проходит по соседним пустым ячейкам и является кратчайшим.
+ */
+public class PathFinderTest {
+    private static final int[] SIDES = { 5, 7, 9, 12, 30 };
+    private static final int ROUNDS = 3000;
+
+    @Test
+    public void searchMatchesBreadthFirstSearch() {
+        SplittableRandom random = new SplittableRandom(4);
+        for (int side : SIDES) {
+            Board board = new Board(side);
+            PathFinder finder = new PathFinder(board);
+            for (int round = 0; round < ROUNDS; round++) {
+                Boards.fill(board, random, random.nextDouble(), Board.COLORS);
+                int from = random.nextInt(board.size());
+                int to = random.nextInt(board.size());
+                int[] distance = Boards.distances(board, from);
+                boolean expected = from != to && board.isEmpty(to) && distance[to] > 0;
+                assertEquals("side " + side + ", round " + round, expected, finder.search(from, to));
+                if ( !expected ) {
+                    continue;
+                }
+                assertEquals(distance[to], finder.getPathLength());
+                int previous = from;
+                for (int i = 0; i < finder.getPathLength(); i++) {
+                    int cell = finder.getPath()[i];
+                    assertTrue(board.isEmpty(cell));
+                    assertEquals(1, Math.abs(cell % side - previous % side) + Math.abs(cell / side - previous / side));
+                    previous = cell;
+                }
+                assertEquals(to, previous);
+            }
+        }
+    }
+}
@@ -0,0 +1,70 @@
+package com.game.lines.logic;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.SplittableRandom;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Запись и воспроизведение игр ({@link Replay}) на случайных последовательностях ходов, отмен и повторов:
+ * воспроизведение записи, прошедшей через двоичный формат, приводит к той же игре.
+ */
+public class ReplayTest {
+    private static final int[] SIDES = { 7, 9, 12, 20 };
+    private static final int GAMES = 50;
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void playbackReproducesRecordedGame() throws IOException {
+        SplittableRandom random = new SplittableRandom(11);
+        for (int side : SIDES) {
+            for (int g = 0; g < GAMES; g++) {
+                Game game = new Game(side, random.split());
+                game.setJournal(new TurnJournal());
+                game.setReplay(new Replay());
+                long seed = random.nextLong();
+                game.start(seed);
+                int[] move;
+                while ( (move = Boards.randomMove(game, random)) != null ) {
+                    assertTrue(game.turn(move[0], move[1]));
+                    int action = random.nextInt(10);
+                    if ( action == 0 ) {
+                        game.undo();
+                    } else if ( action == 1 && game.undo() ) {
+                        game.redo();
+                    }
+                }
+                Replay replay = game.getReplay();
+                assertTrue(replay.isValid());
+                Replay decoded = Replay.fromBytes(replay.toBytes());
+                assertEquals(side, decoded.getSide());
+                assertEquals(seed, decoded.getSeed());
+                assertEquals(replay.getActionCount(), decoded.getActionCount());
+                assertEquals("side " + side + ", game " + g, Boards.state(game), Boards.state(decoded.play()));
+
+                Path path = folder.getRoot().toPath().resolve(side + "-" + g + ".lnr");
+                replay.write(path);
+                assertEquals(Boards.state(game), Boards.state(Replay.read(path).play()));
+            }
+        }
+    }
+
+    @Test
+    public void resetWithoutSeedInvalidatesRecording() {
+        Game game = new Game(9, new SplittableRandom(12));
+        game.setReplay(new Replay());
+        game.start(12);
+        assertTrue(game.getReplay().isValid());
+        game.start();
+        assertFalse(game.getReplay().isValid());
+    }
+}
@@ -0,0 +1,147 @@
+package com.game.lines.logic;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Сохранение и загрузка игры ({@link SaveFile}) на случайных последовательностях ходов, отмен и повторов:
+ * загруженная игра совпадает с сохранённой, в том числе после сжатия файла, при оборванной последней записи
+ * и при ходах, не поместившихся в журнал (вместо записи хода сохраняется снимок). Записываемая игра
+ * восстанавливается вместе с записью и генератором: после загрузки она продолжается так же, как её воспроизведение.
+ */
+public class SaveFileTest {
+    private static final int SIDE = 12;
+    // количества записей: до сжатия, на границе сжатия и после нескольких сжатий
+    private static final int[] RECORDS = { 0, 1, 10, 255, 256, 257, 700 };
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void loadRestoresSavedGame() throws IOException {
+        SplittableRandom random = new SplittableRandom(8);
+        for (int records : RECORDS) {
+            Path path = folder.getRoot().toPath().resolve("autosave-" + records + ".bin");
+            List<String> states = play(path, records, new TurnJournal(), null, random);
+            Game loaded = new Game(SIDE, new SplittableRandom());
+            assertTrue(new SaveFile(path).load(loaded));
+            assertEquals("records " + records, states.get(states.size() - 1), Boards.state(loaded));
+        }
+    }
+
+    @Test
+    public void turnsMissingInJournalAreSavedAsSnapshots() throws IOException {
+        SplittableRandom random = new SplittableRandom(12);
+        for (int capacity : new int[] { 2, 16, 64 }) {
+            Path path = folder.getRoot().toPath().resolve("autosave-" + capacity + ".bin");
+            List<String> states = play(path, 300, new TurnJournal(capacity), null, random);
+            Game loaded = new Game(SIDE, new SplittableRandom());
+            assertTrue(new SaveFile(path).load(loaded));
+            assertEquals("capacity " + capacity, states.get(states.size() - 1), Boards.state(loaded));
+        }
+    }
+
+    @Test
+    public void loadResumesRecordedGame() throws IOException {
+        SplittableRandom random = new SplittableRandom(13);
+        for (int records : RECORDS) {
+            Path path = folder.getRoot().toPath().resolve("autosave-" + records + ".bin");
+            Replay saved = new Replay();
+            List<String> states = play(path, records, new TurnJournal(), saved, random);
+            Game loaded = new Game(SIDE, new SplittableRandom());
+            loaded.setJournal(new TurnJournal());
+            loaded.setReplay(new Replay());
+            assertTrue(new SaveFile(path).load(loaded));
+            assertEquals("records " + records, states.get(states.size() - 1), Boards.state(loaded));
+            assertArrayEquals(saved.toBytes(), loaded.getReplay().toBytes());
+            // продолжение загруженной игры совпадает с продолжением её воспроизведения
+            Game played = saved.play();
+            for (int turn = 0; turn < 20; turn++) {
+                int[] move = Boards.randomMove(loaded, random);
+                if ( move == null ) {
+                    break;
+                }
+                assertTrue(loaded.turn(move[0], move[1]));
+                assertTrue(played.turn(move[0], move[1]));
+                assertEquals(Boards.state(played), Boards.state(loaded));
+            }
+            assertTrue(loaded.getReplay().isValid());
+        }
+    }
+
+    @Test
+    public void tornRecordIsIgnored() throws IOException {
+        Path path = folder.getRoot().toPath().resolve("autosave.bin");
+        List<String> states = play(path, 10, new TurnJournal(), null, new SplittableRandom(9));
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.WRITE)) {
+            channel.truncate(channel.size() - 3);
+        }
+        Game loaded = new Game(SIDE, new SplittableRandom());
+        assertTrue(new SaveFile(path).load(loaded));
+        assertEquals(states.get(states.size() - 2), Boards.state(loaded));
+    }
+
+    @Test
+    public void otherGridSizeIsRejected() {
+        Path path = folder.getRoot().toPath().resolve("autosave.bin");
+        play(path, 3, new TurnJournal(), null, new SplittableRandom(10));
+        Game other = new Game(SIDE + 1, new SplittableRandom());
+        assertFalse(new SaveFile(path).load(other));
+    }
+
+    /**
+     * Случайная игра с сохранением, как в GameHelper: снимок в начале игры и запись после каждого действия.
+     *
+     * @param replay запись игры или null, если игра не записывается.
+     *
+     * @return состояния игры после снимка и после каждой записи.
+     */
+    private static List<String> play(Path path, int records, TurnJournal journal, Replay replay,
+            SplittableRandom random) {
+        SaveFile saveFile = new SaveFile(path);
+        Game game = new Game(SIDE, random.split());
+        game.setJournal(journal);
+        game.setReplay(replay);
+        game.start(random.nextLong());
+        saveFile.snapshot(game);
+        List<String> states = new ArrayList<>();
+        states.add(Boards.state(game));
+        while ( states.size() <= records ) {
+            int action = random.nextInt(10);
+            boolean done;
+            if ( action == 0 ) {
+                done = game.undo();
+            } else if ( action == 1 ) {
+                done = game.redo();
+            } else {
+                int[] move = Boards.randomMove(game, random);
+                done = move != null && game.turn(move[0], move[1]);
+                if ( move == null && !game.getJournal().canUndo() ) {
+                    game.start(random.nextLong());
+                    saveFile.snapshot(game);
+                    states.set(states.size() - 1, Boards.state(game));
+                }
+            }
+            if ( done ) {
+                saveFile.append(game);
+                states.add(Boards.state(game));
+            }
+        }
+        saveFile.close();
+        return states;
+    }
+}
@@ -0,0 +1,73 @@
+package com.game.lines.logic;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Отмена и повтор ходов ({@link TurnJournal}) на случайных играх: каждая отмена возвращает состояние
+ * до хода, каждый повтор - состояние после него, в том числе когда старые ходы вытеснены из буфера.
+ */
+public class TurnJournalTest {
+    private static final int[] SIDES = { 7, 9, 12, 20 };
+    private static final int GAMES = 50;
+
+    @Test
+    public void undoAndRedoRestoreEveryState() {
+        check(0);
+    }
+
+    @Test
+    public void undoStopsAtEvictedTurns() {
+        // буфер на несколько ходов: старые записи вытесняются
+        check(256);
+    }
+
+    private static void check(int capacity) {
+        SplittableRandom random = new SplittableRandom(7);
+        for (int side : SIDES) {
+            for (int g = 0; g < GAMES; g++) {
+                Game game = new Game(side, random.split());
+                game.setJournal(capacity == 0 ? new TurnJournal() : new TurnJournal(capacity));
+                game.start(random.nextLong());
+                List<String> states = new ArrayList<>();
+                states.add(Boards.state(game));
+                int[] move;
+                while ( (move = Boards.randomMove(game, random)) != null ) {
+                    assertTrue(game.turn(move[0], move[1]));
+                    states.add(Boards.state(game));
+                }
+                int last = states.size() - 1;
+                int undone = 0;
+                while ( game.undo() ) {
+                    undone++;
+                    assertEquals("side " + side + ", game " + g, states.get(last - undone), Boards.state(game));
+                }
+                if ( capacity == 0 ) {
+                    assertEquals(last, undone);
+                } else {
+                    assertTrue(undone > 0 && undone <= last);
+                }
+                for (int redone = 1; redone <= undone; redone++) {
+                    assertTrue(game.redo());
+                    assertEquals(states.get(last - undone + redone), Boards.state(game));
+                }
+                assertFalse(game.redo());
+
+                // новый ход после отмены удаляет записи для повтора
+                if ( undone > 0 && game.undo() ) {
+                    move = Boards.randomMove(game, random);
+                    assertTrue(game.turn(move[0], move[1]));
+                    assertFalse(game.getJournal().canRedo());
+                    assertFalse(game.redo());
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,108 @@
+package com.game.lines.model;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.SplittableRandom;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Сравнение таблиц {@link Topology} с вычислением по координатам: соседи ячеек, отрезки направлений
+ * и хэш поля.
+ */
+public class TopologyTest {
+    private static final int[] SIDES = { 1, 4, 5, 7, 9, 12, 30 };
+
+    @Test
+    public void neighborsMatchCoordinates() {
+        for (int side : SIDES) {
+            Topology topology = Topology.of(side);
+            int[] starts = topology.getNeighborStarts();
+            for (int i = 0; i < side * side; i++) {
+                int x = i % side;
+                int y = i / side;
+                int[] expected = new int[4];
+                int count = 0;
+                for (int[] next : new int[][] { {x - 1, y}, {x + 1, y}, {x, y - 1}, {x, y + 1} }) {
+                    if ( inside(side, next[0], next[1]) ) {
+                        expected[count++] = next[1] * side + next[0];
+                    }
+                }
+                int[] actual = Arrays.copyOfRange(topology.getNeighbors(), starts[i], starts[i + 1]);
+                Arrays.sort(actual);
+                expected = Arrays.copyOf(expected, count);
+                Arrays.sort(expected);
+                assertArrayEquals("side " + side + ", cell " + i, expected, actual);
+            }
+        }
+    }
+
+    @Test
+    public void segmentsAreWholeLinesOfEachDirection() {
+        for (int side : SIDES) {
+            Topology topology = Topology.of(side);
+            int size = side * side;
+            int[] starts = topology.getSegmentStarts();
+            int[] cells = topology.getSegmentCells();
+            int covered = 0;
+            for (int d = 0; d < Topology.DIRECTIONS.length; d++) {
+                int dx = Topology.DIRECTIONS[d][0];
+                int dy = Topology.DIRECTIONS[d][1];
+                for (int i = 0; i < size; i++) {
+                    int x = i % side;
+                    int y = i / side;
+                    // линия направления через ячейку: от первой ячейки в поле до последней
+                    int back = 0;
+                    while ( inside(side, x - (back + 1) * dx, y - (back + 1) * dy) ) {
+                        back++;
+                    }
+                    int length = back + 1;
+                    while ( inside(side, x + (length - back) * dx, y + (length - back) * dy) ) {
+                        length++;
+                    }
+                    int position = topology.getCellSegments()[d * size + i];
+                    if ( length < Topology.MIN_SEGMENT ) {
+                        assertEquals(-1, position);
+                        continue;
+                    }
+                    covered++;
+                    assertEquals(i, cells[position]);
+                    int segment = topology.segmentOf(position);
+                    assertEquals(back, position - starts[segment]);
+                    assertEquals(length, starts[segment + 1] - starts[segment]);
+                    for (int p = starts[segment]; p < starts[segment + 1]; p++) {
+                        int offset = p - position;
+                        assertEquals((y + offset * dy) * side + x + offset * dx, cells[p]);
+                    }
+                }
+            }
+            assertEquals(covered, cells.length);
+        }
+    }
+
+    @Test
+    public void hashMatchesRecomputation() {
+        SplittableRandom random = new SplittableRandom(6);
+        for (int side : SIDES) {
+            Board board = new Board(side);
+            Topology topology = board.getTopology();
+            for (int round = 0; round < 2000; round++) {
+                int index = random.nextInt(board.size());
+                board.setColor(index, random.nextInt(3) == 0 ? Board.EMPTY : (byte) (1 + random.nextInt(Board.COLORS)));
+                long expected = 0;
+                for (int i = 0; i < board.size(); i++) {
+                    if ( !board.isEmpty(i) ) {
+                        expected ^= topology.zobrist(i, board.getColor(i));
+                    }
+                }
+                assertEquals(expected, board.getHash());
+            }
+        }
+    }
+
+    private static boolean inside(int side, int x, int y) {
+        return x >= 0 && x < side && y >= 0 && y < side;
+    }
+}
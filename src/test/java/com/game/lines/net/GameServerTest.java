@@ -0,0 +1,130 @@
+package com.game.lines.net;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Игровой сервер ({@link GameServer}) на петлевом интерфейсе: запросы к сессиям другого соединения отклоняются
+ * с кодом UNKNOWN_SESSION, а остановка сервера не ждёт, пока селектор проснётся сам.
+ */
+public class GameServerTest {
+    // время ожидания ответа сервера (в миллисекундах)
+    private static final int TIMEOUT = 5000;
+
+    private GameServer server;
+    private Thread loop;
+    private final List<Socket> sockets = new ArrayList<>();
+
+    @Before
+    public void start() throws IOException {
+        server = new GameServer(0, 2);
+        loop = new Thread(() -> {
+            try {
+                server.run();
+            } catch (IOException e) {
+                throw new IllegalStateException(e);
+            }
+        }, "test-selector");
+        loop.start();
+    }
+
+    @After
+    public void stop() throws Exception {
+        server.close();
+        loop.join(TIMEOUT);
+        for (Socket socket : sockets) {
+            socket.close();
+        }
+    }
+
+    @Test
+    public void foreignSessionIsUnknown() throws Exception {
+        Socket owner = connect();
+        Socket other = connect();
+        long session = newGame(owner, 9);
+        for (byte type : new byte[] { Protocol.BOARD, Protocol.SUBSCRIBE, Protocol.CLOSE }) {
+            send(other, type, session);
+            assertError(other, session, Protocol.UNKNOWN_SESSION);
+        }
+        DataOutputStream out = new DataOutputStream(other.getOutputStream());
+        out.writeInt(17);
+        out.writeByte(Protocol.MOVE);
+        out.writeLong(session);
+        out.writeInt(0);
+        out.writeInt(1);
+        out.flush();
+        assertError(other, session, Protocol.UNKNOWN_SESSION);
+        // сессия не закрыта чужим запросом и доступна своему соединению
+        send(owner, Protocol.BOARD, session);
+        DataInputStream in = new DataInputStream(owner.getInputStream());
+        assertEquals(1 + 8 + 4 * 4 + 1 + 9 * 9, in.readInt());
+        assertEquals(Protocol.BOARD_REPLY, in.readByte());
+        assertEquals(session, in.readLong());
+        assertEquals(9, in.readInt());
+    }
+
+    @Test
+    public void closeWakesBlockedSelector() throws Exception {
+        Socket client = connect();
+        newGame(client, 9);
+        // селектор ждёт новых запросов
+        Thread.sleep(100);
+        long start = System.nanoTime();
+        server.close();
+        loop.join(TIMEOUT);
+        assertFalse(loop.isAlive());
+        assertEquals(-1, client.getInputStream().read());
+        long millis = (System.nanoTime() - start) / 1_000_000;
+        assertTrue("close took " + millis + " ms", millis < 1000);
+    }
+
+    private Socket connect() throws IOException {
+        InetSocketAddress address = server.getAddress();
+        Socket socket = new Socket(address.getAddress(), address.getPort());
+        socket.setSoTimeout(TIMEOUT);
+        sockets.add(socket);
+        return socket;
+    }
+
+    private static long newGame(Socket socket, int side) throws IOException {
+        DataOutputStream out = new DataOutputStream(socket.getOutputStream());
+        out.writeInt(1 + 4 + 8);
+        out.writeByte(Protocol.NEW_GAME);
+        out.writeInt(side);
+        out.writeLong(1);
+        out.flush();
+        DataInputStream in = new DataInputStream(socket.getInputStream());
+        assertEquals(1 + 8, in.readInt());
+        assertEquals(Protocol.GAME_REPLY, in.readByte());
+        return in.readLong();
+    }
+
+    private static void send(Socket socket, byte type, long session) throws IOException {
+        DataOutputStream out = new DataOutputStream(socket.getOutputStream());
+        out.writeInt(1 + 8);
+        out.writeByte(type);
+        out.writeLong(session);
+        out.flush();
+    }
+
+    private static void assertError(Socket socket, long session, byte code) throws IOException {
+        DataInputStream in = new DataInputStream(socket.getInputStream());
+        assertEquals(1 + 8 + 1, in.readInt());
+        assertEquals(Protocol.ERROR_REPLY, in.readByte());
+        assertEquals(session, in.readLong());
+        assertEquals(code, in.readByte());
+    }
+}
@@ -0,0 +1,113 @@
+package com.game.lines.sim;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Таблица транспозиций ({@link TranspositionTable}): оценка возвращается только для той же позиции и не меньшей
+ * глубины, более глубокая оценка не вытесняется более мелкой, а одновременные записи не смешивают ключ, глубину
+ * и оценку разных позиций.
+ */
+public class TranspositionTableTest {
+
+    @Test
+    public void valueIsReturnedForSameOrShallowerDepth() {
+        TranspositionTable table = new TranspositionTable(1024);
+        table.put(42, 3, 1.5f);
+        assertEquals(1.5f, table.get(42, 3), 0);
+        assertEquals(1.5f, table.get(42, 0), 0);
+        assertTrue(Float.isNaN(table.get(42, 4)));
+        assertTrue(Float.isNaN(table.get(43, 0)));
+    }
+
+    @Test
+    public void deeperValueIsKept() {
+        TranspositionTable table = new TranspositionTable(1024);
+        table.put(42, 5, 1f);
+        table.put(42, 2, 2f);
+        assertEquals(1f, table.get(42, 2), 0);
+        // оценка той же глубины заменяет прежнюю
+        table.put(42, 5, 3f);
+        assertEquals(3f, table.get(42, 5), 0);
+    }
+
+    @Test
+    public void otherPositionReplacesSlot() {
+        TranspositionTable table = new TranspositionTable(1024);
+        // хэши отличаются только битами выше номера ячейки
+        long first = 0x1234_5678_0000_0042L;
+        long second = first ^ 1024;
+        table.put(first, 5, 1f);
+        table.put(second, 0, 2f);
+        assertEquals(2f, table.get(second, 0), 0);
+        assertTrue(Float.isNaN(table.get(first, 0)));
+    }
+
+    @Test
+    public void capacityIsRoundedUp() {
+        // 1000 позиций помещаются в 1024 ячейки: хэши 0..999 попадают в разные ячейки
+        TranspositionTable table = new TranspositionTable(1000);
+        for (int hash = 0; hash < 1000; hash++) {
+            table.put(hash, 0, hash);
+        }
+        for (int hash = 0; hash < 1000; hash++) {
+            assertEquals(hash, table.get(hash, 0), 0);
+        }
+        // при 1024 позициях таблица не удваивается: хэш 1024 занимает ячейку хэша 0
+        TranspositionTable exact = new TranspositionTable(1024);
+        exact.put(0, 0, 1f);
+        exact.put(1024, 0, 2f);
+        assertTrue(Float.isNaN(exact.get(0, 0)));
+    }
+
+    @Test
+    public void concurrentWritesStayConsistent() throws Exception {
+        TranspositionTable table = new TranspositionTable(4096);
+        ExecutorService threads = Executors.newFixedThreadPool(4);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int t = 0; t < 4; t++) {
+                long seed = t;
+                futures.add(threads.submit(() -> {
+                    SplittableRandom random = new SplittableRandom(seed);
+                    for (int i = 0; i < 200_000; i++) {
+                        // много позиций на одну ячейку, чтобы записи вытесняли друг друга
+                        long hash = random.nextLong(1 << 16);
+                        int depth = random.nextInt(8);
+                        if ( random.nextBoolean() ) {
+                            table.put(hash, depth, encode(hash, depth));
+                            continue;
+                        }
+                        float value = table.get(hash, depth);
+                        if ( !Float.isNaN(value) ) {
+                            // оценка принадлежит этой позиции и вычислена не мельче запрошенной глубины
+                            assertEquals(hash, (long) value >>> 3);
+                            assertTrue(((long) value & 7) >= depth);
+                        }
+                    }
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } finally {
+            threads.shutdown();
+        }
+    }
+
+    /**
+     * @return оценка, по которой восстанавливаются хэш и глубина (точно представима во float).
+     */
+    private static float encode(long hash, int depth) {
+        return hash << 3 | depth;
+    }
+}
@@ -0,0 +1,113 @@
+package com.game.lines.util;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Handler;
+import java.util.logging.Level;
+import java.util.logging.LogRecord;
+import java.util.logging.Logger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Асинхронная запись в журнал ({@link AsyncLog}): при заполненном буфере сообщения отбрасываются без ожидания
+ * и учитываются счётчиком, о потерях сообщается в журнал, а принятые сообщения записываются по порядку.
+ */
+public class AsyncLogTest {
+    private static final int EXTRA = 100;
+
+    // ссылки на журналы хранятся, чтобы LogManager не удалил их вместе с обработчиками
+    private final Logger logger = Logger.getLogger(AsyncLogTest.class.getName());
+    private final Logger asyncLogger = Logger.getLogger(AsyncLog.class.getName());
+
+    @Test
+    public void overflowIsCountedAndReported() throws Exception {
+        CountDownLatch entered = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        Recorder records = new Recorder(entered, release);
+        Recorder warnings = new Recorder(null, null);
+        logger.setUseParentHandlers(false);
+        logger.addHandler(records);
+        asyncLogger.setUseParentHandlers(false);
+        asyncLogger.addHandler(warnings);
+        try {
+            long dropped = AsyncLog.getDropped();
+            // фоновый поток забирает первое сообщение и ждёт в обработчике, пока буфер заполняется
+            AsyncLog.info(logger, "message {0}", 0);
+            assertTrue(entered.await(5, TimeUnit.SECONDS));
+            for (int i = 1; i <= AsyncLog.CAPACITY + EXTRA; i++) {
+                AsyncLog.info(logger, "message {0}", i);
+            }
+            assertEquals(EXTRA, AsyncLog.getDropped() - dropped);
+            release.countDown();
+            AsyncLog.flush(5000);
+            List<LogRecord> written = records.get(AsyncLog.CAPACITY + 1);
+            for (int i = 0; i < written.size(); i++) {
+                assertEquals(i, ((Number) written.get(i).getParameters()[0]).intValue());
+            }
+            LogRecord warning = warnings.get(1).get(0);
+            assertEquals(Level.WARNING, warning.getLevel());
+            assertEquals(EXTRA + " log records dropped: buffer is full", warning.getMessage());
+        } finally {
+            release.countDown();
+            logger.removeHandler(records);
+            asyncLogger.removeHandler(warnings);
+            asyncLogger.setUseParentHandlers(true);
+        }
+    }
+
+    /**
+     * Обработчик, запоминающий записи; первая запись может ожидать разрешения теста.
+     */
+    private static final class Recorder extends Handler {
+        private final CountDownLatch entered;
+        private final CountDownLatch release;
+        private final List<LogRecord> records = new ArrayList<>();
+
+        Recorder(CountDownLatch entered, CountDownLatch release) {
+            this.entered = entered;
+            this.release = release;
+        }
+
+        @Override
+        public void publish(LogRecord record) {
+            if ( entered != null && entered.getCount() > 0 ) {
+                entered.countDown();
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+            synchronized ( records ) {
+                records.add(record);
+                records.notifyAll();
+            }
+        }
+
+        /**
+         * @return записи после того, как их наберётся не меньше count (ожидание не дольше 5 секунд).
+         */
+        List<LogRecord> get(int count) throws InterruptedException {
+            long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+            synchronized ( records ) {
+                while ( records.size() < count && System.nanoTime() < deadline ) {
+                    records.wait(100);
+                }
+                assertEquals(count, records.size());
+                return new ArrayList<>(records);
+            }
+        }
+
+        @Override
+        public void flush() { }
+
+        @Override
+        public void close() { }
+    }
+}
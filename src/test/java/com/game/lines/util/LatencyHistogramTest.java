@@ -0,0 +1,102 @@
+package com.game.lines.util;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.SplittableRandom;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Гистограмма длительностей ({@link LatencyHistogram}): процентили не меньше точных и превышают их не более чем
+ * на ширину интервала (12,5%), количество, среднее и максимум точные.
+ */
+public class LatencyHistogramTest {
+
+    @Test
+    public void percentilesStayWithinBucketError() {
+        SplittableRandom random = new SplittableRandom(3);
+        for (long range : new long[] { 10, 1_000, 1_000_000, 10_000_000_000L }) {
+            LatencyHistogram histogram = new LatencyHistogram();
+            long[] values = new long[10_000];
+            for (int i = 0; i < values.length; i++) {
+                // длинный хвост: большая часть значений мала, немногие близки к range
+                values[i] = (long) (range * Math.pow(random.nextDouble(), 4));
+                histogram.record(values[i]);
+            }
+            Arrays.sort(values);
+            LatencyHistogram.Snapshot snapshot = histogram.snapshot();
+            String message = "range " + range;
+            assertEquals(message, values.length, snapshot.getCount());
+            assertEquals(message, values[values.length - 1], nanos(snapshot.getMaxMicros()));
+            assertEquals(message, Arrays.stream(values).average().getAsDouble() / 1000, snapshot.getMeanMicros(),
+                    1e-9 * range);
+            check(message + ", p50", exact(values, 0.5), nanos(snapshot.getP50Micros()));
+            check(message + ", p90", exact(values, 0.9), nanos(snapshot.getP90Micros()));
+            check(message + ", p99", exact(values, 0.99), nanos(snapshot.getP99Micros()));
+        }
+    }
+
+    @Test
+    public void singleValueIsExact() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        histogram.record(123_456);
+        LatencyHistogram.Snapshot snapshot = histogram.snapshot();
+        // процентили не превышают максимум
+        assertEquals(123_456, nanos(snapshot.getP50Micros()));
+        assertEquals(123_456, nanos(snapshot.getP99Micros()));
+    }
+
+    @Test
+    public void resetClearsEverything() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        histogram.record(-5);
+        histogram.record(1_000);
+        assertEquals(0, nanos(histogram.snapshot().getP50Micros()));
+        histogram.reset();
+        LatencyHistogram.Snapshot snapshot = histogram.snapshot();
+        assertEquals(0, snapshot.getCount());
+        assertEquals(0, snapshot.getMeanMicros(), 0);
+        assertEquals(0, nanos(snapshot.getP99Micros()));
+        assertEquals(0, nanos(snapshot.getMaxMicros()));
+    }
+
+    @Test
+    public void concurrentRecordsAreCounted() throws InterruptedException {
+        LatencyHistogram histogram = new LatencyHistogram();
+        Thread[] threads = new Thread[4];
+        for (int t = 0; t < threads.length; t++) {
+            long value = 1000 * (t + 1);
+            threads[t] = new Thread(() -> {
+                for (int i = 0; i < 100_000; i++) {
+                    histogram.record(value);
+                }
+            });
+            threads[t].start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        LatencyHistogram.Snapshot snapshot = histogram.snapshot();
+        assertEquals(400_000, snapshot.getCount());
+        assertEquals(4000, nanos(snapshot.getMaxMicros()));
+        assertEquals(2.5, snapshot.getMeanMicros(), 1e-9);
+    }
+
+    /**
+     * Процентиль - верхняя граница интервала, в который попало точное значение.
+     */
+    private static void check(String message, long exact, long reported) {
+        assertTrue(message + ": " + reported + " < " + exact, reported >= exact);
+        assertTrue(message + ": " + reported + " > " + exact + " + 12.5%", reported <= exact + exact / 8);
+    }
+
+    private static long exact(long[] sorted, double fraction) {
+        return sorted[(int) Math.ceil(fraction * sorted.length) - 1];
+    }
+
+    private static long nanos(double micros) {
+        return Math.round(micros * 1000);
+    }
+}